@@ -0,0 +1,117 @@
+package dev.cele.cepispring.bench;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs the benchmarks and compares them with a baseline.
+ * <p>
+ * Usage: java -jar benchmarks.jar [baseline.json] [jmh options]
+ * <p>
+ * Without a baseline file the results are saved as the new baseline, otherwise they are saved in
+ * results.json and every benchmark more than 10% slower than the baseline is reported,
+ * making the process exit with 1.
+ */
+public class BenchmarkMain {
+    private static final double REGRESSION_THRESHOLD = 0.10;
+
+    public static void main(String[] args) throws Exception {
+        Path baseline = Paths.get(args.length > 0 && !args[0].startsWith("-") ? args[0] : "baseline.json");
+        String[] jmhArgs = args.length > 0 && !args[0].startsWith("-") ? Arrays.copyOfRange(args, 1, args.length) : args;
+
+        boolean compare = Files.exists(baseline);
+        Path results = compare ? Paths.get("results.json") : baseline;
+
+        CommandLineOptions commandLine = new CommandLineOptions(jmhArgs);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLine);
+        if(commandLine.getIncludes().isEmpty()){
+            builder.include("dev\\.cele\\.cepispring\\..*Benchmark");
+        }
+        Options options = builder
+                .resultFormat(ResultFormatType.JSON)
+                .result(results.toString())
+                .build();
+        new Runner(options).run();
+
+        if(!compare){
+            System.out.println("Saved the baseline in " + baseline);
+            return;
+        }
+
+        int regressions = compare(readScores(baseline), readScores(results));
+        if(regressions > 0){
+            System.out.println(regressions + " benchmarks are more than " + (int) (REGRESSION_THRESHOLD * 100) + "% slower than the baseline");
+            System.exit(1);
+        }
+        System.out.println("No regressions against " + baseline);
+    }
+
+    private static int compare(Map<String, Score> baseline, Map<String, Score> current) {
+        int regressions = 0;
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score before = baseline.get(entry.getKey());
+            Score now = entry.getValue();
+            if(before == null){
+                System.out.println(String.format("%-80s new", entry.getKey()));
+                continue;
+            }
+
+            //throughput is better when higher, every other mode is a time
+            double change = now.higherIsBetter
+                    ? (before.value - now.value) / before.value
+                    : (now.value - before.value) / before.value;
+            boolean regression = change > REGRESSION_THRESHOLD;
+            if(regression){
+                regressions++;
+            }
+            System.out.println(String.format("%-80s %12.3f -> %12.3f %s  %+.1f%%%s",
+                    entry.getKey(), before.value, now.value, now.unit, change * 100, regression ? "  REGRESSION" : ""));
+        }
+        return regressions;
+    }
+
+    private static Map<String, Score> readScores(Path file) throws Exception {
+        JSONArray runs = new JSONArray(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        Map<String, Score> scores = new TreeMap<>();
+        for (int i = 0; i < runs.length(); i++) {
+            JSONObject run = runs.getJSONObject(i);
+
+            //the same benchmark runs once for every parameter combination
+            StringBuilder key = new StringBuilder(run.getString("benchmark"));
+            JSONObject params = run.optJSONObject("params");
+            if(params != null){
+                new TreeMap<>(params.toMap()).forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+            }
+
+            JSONObject metric = run.getJSONObject("primaryMetric");
+            scores.put(key.toString(), new Score(metric.getDouble("score"), metric.getString("scoreUnit"), run.getString("mode").equals("thrpt")));
+        }
+        return scores;
+    }
+
+    private static class Score {
+        final double value;
+        final String unit;
+        final boolean higherIsBetter;
+
+        Score(double value, String unit, boolean higherIsBetter) {
+            this.value = value;
+            this.unit = unit;
+            this.higherIsBetter = higherIsBetter;
+        }
+    }
+}
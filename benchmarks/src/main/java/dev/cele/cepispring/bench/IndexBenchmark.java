@@ -0,0 +1,66 @@
+package dev.cele.cepispring.bench;
+
+import dev.cele.cepispring.Utils;
+import dev.cele.cepispring.model.ClassModel;
+import dev.cele.cepispring.model.ParseCache;
+import dev.cele.cepispring.model.ProjectIndex;
+import dev.cele.cepispring.model.SourcePrefilter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The classify phase: grouping the parsed classes by annotation and looking them up by name.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int sourceFiles;
+
+    private Map<File, List<ClassModel>> parsedFiles;
+    private ProjectIndex index;
+    private String[] names;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Path project = SyntheticProject.createTemporary(sourceFiles);
+        try {
+            parsedFiles = Utils.parseDirectory(project, Runtime.getRuntime().availableProcessors(), ParseCache.inMemory(), SourcePrefilter.ALL);
+        } finally {
+            SyntheticProject.delete(project);
+        }
+        index = new ProjectIndex(parsedFiles);
+        names = parsedFiles.values().stream().flatMap(List::stream).map(it -> it.name).toArray(String[]::new);
+    }
+
+    @Benchmark
+    public ProjectIndex build() {
+        return new ProjectIndex(parsedFiles);
+    }
+
+    @Benchmark
+    public void groupByAnnotation(Blackhole blackhole) {
+        blackhole.consume(index.getAnnotatedWith("Entity"));
+        blackhole.consume(index.getAnnotatedWith("Repository"));
+        blackhole.consume(index.getAnnotatedWith("Service"));
+        blackhole.consume(index.getAnnotatedWith("RestController"));
+        blackhole.consume(index.getDtos());
+    }
+
+    @Benchmark
+    public void lookupEveryClass(Blackhole blackhole) {
+        for (String name : names) {
+            blackhole.consume(index.isAnnotatedWith(name, "Entity"));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package dev.cele.cepispring.bench;
+
+import dev.cele.cepispring.Utils;
+import dev.cele.cepispring.model.ClassModel;
+import dev.cele.cepispring.model.ParseCache;
+import dev.cele.cepispring.model.SourcePrefilter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The parse phase: reading and parsing every java file of a project into class models.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+    private static final SourcePrefilter CRUD_PREFILTER = SourcePrefilter.forAnnotations("Repository", "Entity", "Service", "RestController")
+            .orPackageOrClassContains("dto");
+
+    @Param({"100", "1000", "10000"})
+    public int sourceFiles;
+
+    private Path project;
+    private ParseCache warmCache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        project = SyntheticProject.createTemporary(sourceFiles);
+        warmCache = ParseCache.inMemory();
+        Utils.parseDirectory(project, 1, warmCache, SourcePrefilter.ALL);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SyntheticProject.delete(project);
+    }
+
+    @Benchmark
+    public Map<File, List<ClassModel>> coldSingleThread() {
+        return Utils.parseDirectory(project, 1, ParseCache.inMemory(), SourcePrefilter.ALL);
+    }
+
+    @Benchmark
+    public Map<File, List<ClassModel>> coldParallel() {
+        return Utils.parseDirectory(project, Runtime.getRuntime().availableProcessors(), ParseCache.inMemory(), SourcePrefilter.ALL);
+    }
+
+    @Benchmark
+    public Map<File, List<ClassModel>> coldPrefiltered() {
+        return Utils.parseDirectory(project, Runtime.getRuntime().availableProcessors(), ParseCache.inMemory(), CRUD_PREFILTER);
+    }
+
+    @Benchmark
+    public Map<File, List<ClassModel>> warmCache() {
+        return Utils.parseDirectory(project, Runtime.getRuntime().availableProcessors(), warmCache, SourcePrefilter.ALL);
+    }
+}
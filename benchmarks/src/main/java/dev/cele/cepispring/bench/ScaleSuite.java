@@ -0,0 +1,99 @@
+package dev.cele.cepispring.bench;
+
+import dev.cele.cepispring.CLIOptions;
+import dev.cele.cepispring.crud.CrudMaker;
+import dev.cele.cepispring.output.ConsoleSink;
+import dev.cele.cepispring.ts.TypescriptMaker;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Runs both makers end to end on synthetic projects of growing size, printing how wall time and peak heap scale
+ * and failing when a run goes over its budget.
+ * <p>
+ * Usage: java -Xmx2g -cp benchmarks.jar dev.cele.cepispring.bench.ScaleSuite [sourceFiles,...]
+ * <p>
+ * The budgets are a fixed part plus a part for every 1000 source files, and can be changed with
+ * -Dbudget.baseMillis, -Dbudget.millisPerThousand, -Dbudget.baseHeapMb and -Dbudget.heapMbPerThousand.
+ * Every run starts from an empty cache, the way a first run on a new checkout does.
+ */
+public class ScaleSuite {
+    private static final long BASE_MILLIS = Long.getLong("budget.baseMillis", 5_000);
+    private static final long MILLIS_PER_THOUSAND = Long.getLong("budget.millisPerThousand", 500);
+    private static final long BASE_HEAP_MB = Long.getLong("budget.baseHeapMb", 64);
+    private static final long HEAP_MB_PER_THOUSAND = Long.getLong("budget.heapMbPerThousand", 8);
+
+    public static void main(String[] args) {
+        String sizes = args.length > 0 ? args[0] : "1000,10000,50000";
+
+        List<String> failures = new ArrayList<>();
+        List<String> rows = new ArrayList<>();
+        for (String size : sizes.split(",")) {
+            int sourceFiles = Integer.parseInt(size.trim());
+
+            SyntheticProject generator = new SyntheticProject();
+            generator.sourceFiles = sourceFiles;
+            Path project = generator.createTemporary();
+            try {
+                rows.add(run("typescript", sourceFiles, project, options -> new TypescriptMaker(options, new ConsoleSink(false)), failures));
+                rows.add(run("crud", sourceFiles, project, options -> new CrudMaker(options, new ConsoleSink(false)), failures));
+            } finally {
+                SyntheticProject.delete(project);
+            }
+        }
+
+        System.out.println();
+        System.out.println(String.format("%-12s %12s %12s %12s %14s", "maker", "files", "wall ms", "files/s", "peak heap MB"));
+        rows.forEach(System.out::println);
+
+        if(!failures.isEmpty()){
+            System.out.println();
+            failures.forEach(System.out::println);
+            System.exit(1);
+        }
+    }
+
+    private static String run(String makerName, int sourceFiles, Path project, Function<CLIOptions, Runnable> maker, List<String> failures) {
+        CLIOptions options = new CLIOptions();
+        options.directories = Collections.singletonList(project);
+        options.noCache = true;
+
+        //starting from a clean heap, so the peak is the one of this run
+        System.gc();
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long start = System.nanoTime();
+        maker.apply(options).run();
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long peakHeapMb = peakHeapBytes() / (1024 * 1024);
+
+        long millisBudget = BASE_MILLIS + MILLIS_PER_THOUSAND * sourceFiles / 1000;
+        long heapBudgetMb = BASE_HEAP_MB + HEAP_MB_PER_THOUSAND * sourceFiles / 1000;
+        if(millis > millisBudget){
+            failures.add(makerName + " on " + sourceFiles + " files took " + millis + " ms, the budget is " + millisBudget + " ms");
+        }
+        if(peakHeapMb > heapBudgetMb){
+            failures.add(makerName + " on " + sourceFiles + " files used " + peakHeapMb + " MB of heap, the budget is " + heapBudgetMb + " MB");
+        }
+
+        return String.format("%-12s %12d %12d %12d %14d", makerName, sourceFiles, millis, sourceFiles * 1000L / Math.max(1, millis), peakHeapMb);
+    }
+
+    private static long peakHeapBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if(pool.getType() == MemoryType.HEAP){
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
@@ -0,0 +1,258 @@
+package dev.cele.cepispring.bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Writes a Spring project with the given number of source files, to run cepi-spring on something the size of a real one.
+ * Mapped entities come with a DTO, a JpaRepository, a service interface and implementation and a controller, the
+ * unmapped ones are left for the crud maker. Every entity is related to the ones before and after it, and the remaining
+ * files are plain classes that no maker is interested in.
+ * Entities are spread over domain packages, like com.example.synthetic.domain3.entity, as in a big monorepo.
+ * <p>
+ * Usage: java -cp benchmarks.jar dev.cele.cepispring.bench.SyntheticProject directory sourceFiles [noiseShare]
+ */
+public class SyntheticProject {
+    public static final String BASE_PACKAGE = "com.example.synthetic";
+    //the files of an entity with its whole crud
+    private static final int FILES_PER_MAPPED_ENTITY = 6;
+
+    //the types of the plain fields, cycled through
+    private static final String[] FIELD_TYPES = { "String", "Long", "int", "Boolean", "Double", "java.math.BigDecimal", "java.time.LocalDate", "String" };
+
+    //region configuration
+    public int sourceFiles = 1000;
+
+    //the share of source files that are plain classes, not part of any crud
+    public double noiseShare = 0.3;
+
+    //the share of entities that already have their crud
+    public double mappedShare = 0.5;
+
+    public int fieldsPerEntity = 6;
+
+    //how many @ManyToOne relations every entity has to the previous ones
+    public int relationsPerEntity = 2;
+
+    public int entitiesPerDomain = 50;
+    //endregion
+
+    private Path root;
+    private int files;
+
+    public static void main(String[] args) {
+        if(args.length < 2){
+            System.out.println("Usage: SyntheticProject directory sourceFiles [noiseShare]");
+            System.exit(1);
+        }
+
+        SyntheticProject project = new SyntheticProject();
+        project.sourceFiles = Integer.parseInt(args[1]);
+        if(args.length > 2){
+            project.noiseShare = Double.parseDouble(args[2]);
+        }
+        project.generate(Paths.get(args[0]));
+        System.out.println("Generated " + project.sourceFiles + " source files in " + args[0]);
+    }
+
+    public static Path createTemporary(int sourceFiles) {
+        SyntheticProject project = new SyntheticProject();
+        project.sourceFiles = sourceFiles;
+        return project.createTemporary();
+    }
+
+    public Path createTemporary() {
+        try {
+            Path directory = Files.createTempDirectory("cepi-synthetic-");
+            generate(directory);
+            return directory;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void generate(Path directory) {
+        root = directory;
+        files = 0;
+
+        double filesPerEntity = 1 + (FILES_PER_MAPPED_ENTITY - 1) * mappedShare;
+        int entities = Math.max(1, (int) (sourceFiles * (1 - noiseShare) / filesPerEntity));
+        for (int i = 0; i < entities; i++) {
+            writeEntity(i, entities);
+        }
+        for (int i = 0; files < sourceFiles; i++) {
+            writeHelper(i);
+        }
+    }
+
+    public static void delete(Path root) {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //spreading the mapped entities evenly, the first one is always mapped so every crud package exists
+    private boolean isMapped(int entity) {
+        return entity == 0 || (int) ((entity + 1) * mappedShare) > (int) (entity * mappedShare);
+    }
+
+    private String domainPackage(int entity) {
+        return BASE_PACKAGE + ".domain" + (entity / entitiesPerDomain);
+    }
+
+    private void writeEntity(int i, int entities) {
+        String name = "Entity" + i;
+        String domain = domainPackage(i);
+
+        StringBuilder entityFields = new StringBuilder();
+        StringBuilder dtoFields = new StringBuilder();
+        StringBuilder imports = new StringBuilder();
+        for (int f = 0; f < fieldsPerEntity; f++) {
+            String type = FIELD_TYPES[(i + f) % FIELD_TYPES.length];
+            String simpleType = type.substring(type.lastIndexOf('.') + 1);
+            if(!simpleType.equals(type) && imports.indexOf(type) < 0){
+                imports.append("import ").append(type).append(";\n");
+            }
+            entityFields.append("    private ").append(simpleType).append(" field").append(f).append(";\n");
+            dtoFields.append("    private ").append(simpleType).append(" field").append(f).append(";\n");
+        }
+
+        //relations to the previous entities, and the list of the next one pointing back
+        String entityImports = imports.toString();
+        String dtoImports = imports.toString();
+        for (int r = 1; r <= relationsPerEntity && i - r >= 0; r++) {
+            String target = "Entity" + (i - r);
+            if(!domainPackage(i - r).equals(domain)){
+                entityImports += "import " + domainPackage(i - r) + ".entity." + target + ";\n";
+                dtoImports += "import " + domainPackage(i - r) + ".dto." + target + "Dto;\n";
+            }
+            entityFields.append("    @ManyToOne\n    private ").append(target).append(" relation").append(r).append(";\n");
+            dtoFields.append("    private ").append(target).append("Dto relation").append(r).append(";\n");
+        }
+        if(i + 1 < entities){
+            String target = "Entity" + (i + 1);
+            if(!domainPackage(i + 1).equals(domain)){
+                entityImports += "import " + domainPackage(i + 1) + ".entity." + target + ";\n";
+                dtoImports += "import " + domainPackage(i + 1) + ".dto." + target + "Dto;\n";
+            }
+            entityFields.append("    @OneToMany(mappedBy = \"relation1\")\n    private List<").append(target).append("> children;\n");
+            dtoFields.append("    private List<").append(target).append("Dto> children;\n");
+        }
+
+        write(domain + ".entity", name,
+                entityImports +
+                "import javax.persistence.*;\n" +
+                "import java.util.List;\n\n" +
+                "@Entity\n" +
+                "public class " + name + " {\n" +
+                "    @Id\n" +
+                "    @GeneratedValue\n" +
+                "    private Long id;\n" +
+                entityFields +
+                "}\n");
+
+        if(!isMapped(i)){
+            return;
+        }
+
+        write(domain + ".dto", name + "Dto",
+                dtoImports +
+                "import java.util.List;\n\n" +
+                "public class " + name + "Dto {\n" +
+                "    private Long id;\n" +
+                dtoFields +
+                "}\n");
+
+        write(domain + ".repository", name + "Repository",
+                "import " + domain + ".entity." + name + ";\n" +
+                "import org.springframework.data.jpa.repository.JpaRepository;\n" +
+                "import org.springframework.stereotype.Repository;\n\n" +
+                "@Repository\n" +
+                "public interface " + name + "Repository extends JpaRepository<" + name + ", Long> {\n" +
+                "}\n");
+
+        write(domain + ".service", name + "Service",
+                "import " + domain + ".dto." + name + "Dto;\n" +
+                "import java.util.List;\n\n" +
+                "public interface " + name + "Service {\n" +
+                "    List<" + name + "Dto> findAll();\n" +
+                "}\n");
+
+        write(domain + ".service.impl", name + "ServiceImpl",
+                "import " + domain + ".dto." + name + "Dto;\n" +
+                "import " + domain + ".repository." + name + "Repository;\n" +
+                "import " + domain + ".service." + name + "Service;\n" +
+                "import org.springframework.stereotype.Service;\n" +
+                "import java.util.Collections;\n" +
+                "import java.util.List;\n\n" +
+                "@Service\n" +
+                "public class " + name + "ServiceImpl implements " + name + "Service {\n" +
+                "    private final " + name + "Repository repository;\n\n" +
+                "    public " + name + "ServiceImpl(" + name + "Repository repository) {\n" +
+                "        this.repository = repository;\n" +
+                "    }\n\n" +
+                "    @Override\n" +
+                "    public List<" + name + "Dto> findAll() {\n" +
+                "        return Collections.emptyList();\n" +
+                "    }\n" +
+                "}\n");
+
+        write(domain + ".controller", name + "Controller",
+                "import " + domain + ".dto." + name + "Dto;\n" +
+                "import " + domain + ".service." + name + "Service;\n" +
+                "import org.springframework.web.bind.annotation.*;\n" +
+                "import java.util.List;\n\n" +
+                "@RestController\n" +
+                "@RequestMapping(\"/entity-" + i + "\")\n" +
+                "public class " + name + "Controller {\n" +
+                "    private final " + name + "Service service;\n\n" +
+                "    public " + name + "Controller(" + name + "Service service) {\n" +
+                "        this.service = service;\n" +
+                "    }\n\n" +
+                "    @GetMapping\n" +
+                "    public List<" + name + "Dto> findAll() {\n" +
+                "        return service.findAll();\n" +
+                "    }\n" +
+                "}\n");
+    }
+
+    private void writeHelper(int i) {
+        String name = "Helper" + i;
+        write(BASE_PACKAGE + ".util" + (i / 100), name,
+                "import java.util.ArrayList;\n" +
+                "import java.util.List;\n\n" +
+                "/**\n" +
+                " * Some code no maker cares about.\n" +
+                " */\n" +
+                "public class " + name + " {\n" +
+                "    private final List<String> values = new ArrayList<>();\n\n" +
+                "    public void add(String value) {\n" +
+                "        if (value != null && !value.isEmpty()) {\n" +
+                "            values.add(value.trim());\n" +
+                "        }\n" +
+                "    }\n\n" +
+                "    public int size() {\n" +
+                "        return values.size();\n" +
+                "    }\n" +
+                "}\n");
+    }
+
+    private void write(String packageName, String className, String body) {
+        Path file = root.resolve(packageName.replace('.', '/')).resolve(className + ".java");
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(file, ("package " + packageName + ";\n\n" + body).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        files++;
+    }
+}
@@ -0,0 +1,42 @@
+package dev.cele.cepispring.bench;
+
+import dev.cele.cepispring.Utils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The string helpers called for every generated file and every field.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilsBenchmark {
+    private final String[] classNames = { "Customer", "OrderLine", "ProductCategoryTranslation", "HTTPRequestLog" };
+    private final String[] types = { "String", "List<OrderDto>", "Map<String, List<Long>>", "java.util.Optional<Customer>" };
+
+    @Benchmark
+    public void toKebabCase(Blackhole blackhole) {
+        for (String className : classNames) {
+            blackhole.consume(Utils.toKebabCase(className));
+        }
+    }
+
+    @Benchmark
+    public void typeArguments(Blackhole blackhole) {
+        for (String type : types) {
+            blackhole.consume(Utils.getTypeArguments(type));
+        }
+    }
+
+    @Benchmark
+    public void simpleName(Blackhole blackhole) {
+        for (String type : types) {
+            blackhole.consume(Utils.getSimpleName(type));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package dev.cele.cepispring.crud;
+
+import dev.cele.cepispring.CLIOptions;
+import dev.cele.cepispring.Utils;
+import dev.cele.cepispring.bench.SyntheticProject;
+import dev.cele.cepispring.model.ParseCache;
+import dev.cele.cepispring.model.ProjectIndex;
+import dev.cele.cepispring.model.SourcePrefilter;
+import dev.cele.cepispring.output.ConsoleSink;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The generate phase of the crud maker, rendering every file of every entity.
+ * The project is parsed once in the setup, so only the templates are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CrudBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int sourceFiles;
+
+    private CrudMaker maker;
+    private CrudMaker.EntityInfo[] entities;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Path project = SyntheticProject.createTemporary(sourceFiles);
+        try {
+            CLIOptions options = new CLIOptions();
+            options.directories = Collections.singletonList(project);
+            options.noCache = true;
+            maker = new CrudMaker(options, new ConsoleSink(false));
+
+            ProjectIndex index = new ProjectIndex(Utils.parseDirectory(project, Runtime.getRuntime().availableProcessors(), ParseCache.inMemory(), SourcePrefilter.forAnnotations("Entity")));
+            entities = index.getAnnotatedWith("Entity").stream().map(CrudMaker.EntityInfo::new).toArray(CrudMaker.EntityInfo[]::new);
+        } finally {
+            SyntheticProject.delete(project);
+        }
+    }
+
+    @Benchmark
+    public void dto(Blackhole blackhole) {
+        for (CrudMaker.EntityInfo entity : entities) {
+            blackhole.consume(maker.createDto(entity));
+        }
+    }
+
+    @Benchmark
+    public void repository(Blackhole blackhole) {
+        for (CrudMaker.EntityInfo entity : entities) {
+            blackhole.consume(maker.createRepository(entity));
+        }
+    }
+
+    @Benchmark
+    public void service(Blackhole blackhole) {
+        for (CrudMaker.EntityInfo entity : entities) {
+            blackhole.consume(maker.createService(entity));
+        }
+    }
+
+    @Benchmark
+    public void serviceImpl(Blackhole blackhole) {
+        for (CrudMaker.EntityInfo entity : entities) {
+            blackhole.consume(maker.createServiceImpl(entity));
+        }
+    }
+
+    @Benchmark
+    public void controller(Blackhole blackhole) {
+        for (CrudMaker.EntityInfo entity : entities) {
+            blackhole.consume(maker.createController(entity));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package dev.cele.cepispring.ts;
+
+import dev.cele.cepispring.CLIOptions;
+import dev.cele.cepispring.Utils;
+import dev.cele.cepispring.bench.SyntheticProject;
+import dev.cele.cepispring.model.ClassModel;
+import dev.cele.cepispring.model.ParseCache;
+import dev.cele.cepispring.model.ProjectIndex;
+import dev.cele.cepispring.model.SourcePrefilter;
+import dev.cele.cepispring.model.TypeResolver;
+import dev.cele.cepispring.output.ConsoleSink;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The generate phase of the typescript maker, converting already parsed DTOs to interfaces.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TypescriptBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int sourceFiles;
+
+    private TypescriptMaker maker;
+    private ClassModel[] dtos;
+    private ClassModel[] entities;
+    private final String[] types = { "int", "Long", "String", "Boolean", "Object", "List<OrderDto>", "List<List<Integer>>", "CustomerDto",
+            "Set<String>", "Map<String, List<OrderDto>>", "Optional<LocalDate>", "BigDecimal[]", "Status" };
+    private TypeMapper typeMapper;
+    private ClassModel context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Path project = SyntheticProject.createTemporary(sourceFiles);
+        ProjectIndex index;
+        try {
+            index = new ProjectIndex(Utils.parseDirectory(project, Runtime.getRuntime().availableProcessors(), ParseCache.inMemory(), SourcePrefilter.ALL));
+        } finally {
+            SyntheticProject.delete(project);
+        }
+
+        CLIOptions options = new CLIOptions();
+        options.noCache = true;
+        maker = new TypescriptMaker(options, new ConsoleSink(false));
+
+        List<ClassModel> dtoList = index.getDtos();
+        dtos = dtoList.toArray(new ClassModel[0]);
+        context = dtos[0];
+        typeMapper = newTypeMapper();
+        entities = new ClassModel[dtos.length];
+        for (int i = 0; i < dtos.length; i++) {
+            String entityName = dtos[i].name.replaceAll("(?i)dto", "");
+            entities[i] = index.getBySimpleName(entityName).stream().filter(it -> it.isAnnotationPresent("Entity")).findFirst().orElse(null);
+        }
+    }
+
+    private static TypeMapper newTypeMapper() {
+        return new TypeMapper(new TypeResolver(Collections.emptyList(), type -> false), Collections.singleton("Status"));
+    }
+
+    @Benchmark
+    public void convertAll(Blackhole blackhole) {
+        for (int i = 0; i < dtos.length; i++) {
+            blackhole.consume(maker.convertToTypescript(dtos[i], entities[i]));
+        }
+    }
+
+    /**
+     * Every type after the first conversion, answered by the memo.
+     */
+    @Benchmark
+    public void mapTypes(Blackhole blackhole) {
+        for (String type : types) {
+            blackhole.consume(typeMapper.map(context, type));
+        }
+    }
+
+    /**
+     * Every type converted from scratch.
+     */
+    @Benchmark
+    public void mapTypesCold(Blackhole blackhole) {
+        TypeMapper coldMapper = newTypeMapper();
+        for (String type : types) {
+            blackhole.consume(coldMapper.map(context, type));
+        }
+    }
+}
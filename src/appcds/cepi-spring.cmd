@@ -0,0 +1,9 @@
+@echo off
+rem Starts cepi-spring with the class data sharing archive made by the fast-startup build,
+rem falling back to a normal start if the archive is missing or was made by another JVM.
+set "DIR=%~dp0"
+if exist "%DIR%cepi-spring.jsa" (
+    java -XX:SharedArchiveFile="%DIR%cepi-spring.jsa" -Xshare:auto -jar "%DIR%cepi-spring-fast.jar" %*
+) else (
+    java -jar "%DIR%cepi-spring-fast.jar" %*
+)
@@ -0,0 +1,24 @@
+package com.example.training.controller;
+
+import com.example.training.dto.CustomerDto;
+import com.example.training.service.CustomerService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/customers")
+public class CustomerController {
+    private final CustomerService service;
+
+    public CustomerController(CustomerService service) {
+        this.service = service;
+    }
+
+    @GetMapping
+    public List<CustomerDto> findAll() {
+        return service.findAll();
+    }
+}
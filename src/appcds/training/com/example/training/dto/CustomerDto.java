@@ -0,0 +1,10 @@
+package com.example.training.dto;
+
+import java.util.List;
+
+public class CustomerDto {
+    private Long id;
+    private String name;
+    private boolean active;
+    private List<OrderDto> orders;
+}
@@ -0,0 +1,18 @@
+package com.example.training.entity;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.OneToMany;
+import java.util.List;
+
+@Entity
+public class Customer {
+    @Id
+    @GeneratedValue
+    private Long id;
+    private String name;
+    private boolean active;
+    @OneToMany(mappedBy = "customer")
+    private List<Order> orders;
+}
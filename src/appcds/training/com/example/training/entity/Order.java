@@ -0,0 +1,16 @@
+package com.example.training.entity;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+
+@Entity
+public class Order {
+    @Id
+    @GeneratedValue
+    private Long id;
+    private double total;
+    @ManyToOne
+    private Customer customer;
+}
@@ -0,0 +1,9 @@
+package com.example.training.service;
+
+import com.example.training.dto.CustomerDto;
+
+import java.util.List;
+
+public interface CustomerService {
+    List<CustomerDto> findAll();
+}
@@ -0,0 +1,16 @@
+package com.example.training.service.impl;
+
+import com.example.training.dto.CustomerDto;
+import com.example.training.service.CustomerService;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+
+@Service
+public class CustomerServiceImpl implements CustomerService {
+    @Override
+    public List<CustomerDto> findAll() {
+        return Collections.emptyList();
+    }
+}
@@ -1,10 +1,15 @@
 package dev.cele.cepispring;
 
 
+import dev.cele.cepispring.output.OutputSink;
+import dev.cele.cepispring.ts.TypescriptBundle;
+import dev.cele.cepispring.update.Updater;
 import picocli.CommandLine;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 
 @CommandLine.Command(
         name = "cepi-spring",
@@ -22,12 +27,30 @@ public class CLIOptions {
     @CommandLine.Option(names = {"-c", "--crud"}, description = "generate crud stuff for spring")
     public boolean crud;
 
+    @CommandLine.Option(
+            names = { "--mappers" },
+            description = "Also generate an EntityMapper copying the fields one by one, used by the services instead of ModelMapper. "
+                    + "It goes in a mapper package next to the DTOs"
+    )
+    public boolean mappers;
+
+    @CommandLine.Option(
+            names = { "--max-page-size" },
+            paramLabel = "N",
+            description = "The most rows a page of the generated read endpoints can have, bigger requested pages are cut (default: 100)"
+    )
+    public int maxPageSize = 100;
+
+    @CommandLine.Option(names = { "--unpaged" }, description = "keep the old read endpoint returning every row at the base path, the paged one moves to /page")
+    public boolean unpaged;
+
     @CommandLine.Option(
             names = { "-d", "--dir" },
             paramLabel = "project/src/main/java",
-            description = "The directory of the home of the java source code"
+            description = "The directory of the home of the java source code, can be repeated. "
+                    + "A directory with a pom.xml or settings.gradle is scanned module by module"
     )
-    public Path directory;
+    public List<Path> directories;
 
     @CommandLine.Option(
             names = { "-o", "--out" },
@@ -36,6 +59,89 @@ public class CLIOptions {
     )
     public Path output;
 
+    @CommandLine.Option(
+            names = { "--ts-bundle" },
+            paramLabel = "mode",
+            description = "Write the typescript interfaces together instead of a file per DTO: ${COMPLETION-CANDIDATES}. "
+                    + "single writes them all in models.ts, package writes a file per java package and an index.ts exporting them"
+    )
+    public TypescriptBundle.Mode tsBundle;
+
+    @CommandLine.Option(
+            names = { "--templates" },
+            paramLabel = "templatesDirectory",
+            description = "A directory with templates replacing the bundled ones, like crud/dto.java.tpl"
+    )
+    public Path templates;
+
+    @CommandLine.Option(
+            names = { "--sink" },
+            paramLabel = "sink",
+            description = "Where the generated files go: ${COMPLETION-CANDIDATES}. "
+                    + "console prints them, quiet only counts them, directory writes them in the output directory, "
+                    + "archive streams them in the zip file given as output, or to stdout if the output is - "
+                    + "(default: directory when there is an output, console otherwise)"
+    )
+    public OutputSink.Type sink;
+
+    @CommandLine.Option(
+            names = { "--threads" },
+            paramLabel = "N",
+            description = "The number of threads used to parse the source code (default: one per core)"
+    )
+    public int threads = Runtime.getRuntime().availableProcessors();
+
+    @CommandLine.Option(
+            names = { "--cache-dir" },
+            paramLabel = "cacheDirectory",
+            description = "The directory where parsed classes are cached between runs (default: .cepi-cache)"
+    )
+    public Path cacheDirectory = Paths.get(".cepi-cache");
+
+    @CommandLine.Option(names = { "--no-cache" }, description = "always parse every file, without reading or writing the cache")
+    public boolean noCache;
+
+    @CommandLine.Option(
+            names = { "--max-heap-budget" },
+            paramLabel = "MB",
+            description = "Stream the project in two passes, keeping only a batch of classes and a table of names in memory, "
+                    + "for projects too big to hold at once. The batches are sized to stay within this many megabytes; "
+                    + "the parse cache isn't used"
+    )
+    public Integer maxHeapBudget;
+
+    @CommandLine.Option(names = { "-w", "--watch" }, description = "keep running and regenerate the output of the java files that change")
+    public boolean watch;
+
+    @CommandLine.Option(names = { "--daemon" }, description = "start a daemon that keeps the parsed projects in memory, for the runs with --use-daemon")
+    public boolean daemon;
+
+    @CommandLine.Option(names = { "--use-daemon" }, description = "generate with the running daemon, or without it if there's none")
+    public boolean useDaemon;
+
+    @CommandLine.Option(names = { "--stop-daemon" }, description = "stop the running daemon")
+    public boolean stopDaemon;
+
+    @CommandLine.Option(names = { "--profile" }, description = "print how long each phase took and how much it read, wrote and allocated")
+    public boolean profile;
+
+    @CommandLine.Option(
+            names = { "--profile-report" },
+            paramLabel = "report.json",
+            description = "Also write the profile as a JSON report in this file"
+    )
+    public Path profileReport;
+
+    @CommandLine.Option(names = { "--no-update-check" }, description = "don't check if a new version of cepi-spring is available")
+    public boolean noUpdateCheck;
+
+    @CommandLine.Option(
+            names = { "--update-url" },
+            hidden = true,
+            description = "The url of the latest release in the GitHub API format"
+    )
+    public String updateUrl = Updater.DEFAULT_RELEASE_URL;
+
     @CommandLine.Parameters( paramLabel = "FILE", description = "one or more files to archive")
     public File[] files;
 
@@ -1,38 +1,149 @@
 package dev.cele.cepispring;
 
 import dev.cele.cepispring.crud.CrudMaker;
+import dev.cele.cepispring.daemon.DaemonClient;
+import dev.cele.cepispring.daemon.DaemonServer;
+import dev.cele.cepispring.output.OutputSink;
+import dev.cele.cepispring.profile.Profiler;
+import dev.cele.cepispring.project.SourceRoots;
 import dev.cele.cepispring.ts.TypescriptMaker;
 import dev.cele.cepispring.update.Updater;
+import dev.cele.cepispring.watch.SourceWatcher;
 import picocli.CommandLine;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
 
 public class Main {
 
     public static void main(String[] args) {
-        Updater.checkUpdates();
-
         //parsing CLI Option
         CLIOptions options = new CLIOptions();
-        new CommandLine(options).parseArgs(args);
+        new CommandLine(options).setCaseInsensitiveEnumValuesAllowed(true).parseArgs(args);
 
         if(options.helpRequested){
             new CommandLine(options).usage(System.out);
             return;
         }
 
+        if(options.daemon){
+            try {
+                new DaemonServer().serve();
+            } catch (IOException e) {
+                System.out.println("Cannot start the daemon: " + e.getMessage());
+            }
+            return;
+        }
+
+        if(options.stopDaemon){
+            if(DaemonClient.run(args) == null){
+                System.out.println("No daemon is running");
+            }
+            return;
+        }
+
+        if(options.useDaemon){
+            //the daemon can't watch, nor write an archive on this process stdout
+            boolean archiveToStdout = options.sink == OutputSink.Type.ARCHIVE && options.output != null && options.output.toString().equals("-");
+            if(options.watch || archiveToStdout){
+                System.out.println("The daemon can't be used for this run, generating without it");
+            } else {
+                Integer exitCode = DaemonClient.run(args);
+                if(exitCode != null){
+                    if(exitCode != 0){
+                        System.exit(exitCode);
+                    }
+                    return;
+                }
+                System.out.println("No daemon is running, generating without it");
+            }
+        }
+
+        if(options.watch && options.sink == OutputSink.Type.ARCHIVE){
+            System.out.println("The archive output can't be used in watch mode");
+            return;
+        }
+        if(options.watch && options.maxHeapBudget != null){
+            System.out.println("The watch mode keeps the whole project in memory, it can't be used with a heap budget");
+            return;
+        }
+        if(options.maxPageSize < 1){
+            System.out.println("The max page size must be at least 1");
+            return;
+        }
+        if(options.maxHeapBudget != null && options.maxHeapBudget * 1024L * 1024L > Runtime.getRuntime().maxMemory()){
+            System.out.println("The heap budget is bigger than the maximum heap of " + Runtime.getRuntime().maxMemory() / (1024 * 1024) + " MB, raise it with -Xmx");
+        }
+        //builds are replaced by the source roots of their modules
+        if(options.directories != null){
+            options.directories = SourceRoots.resolve(options.directories);
+        }
+
+        if(options.profile || options.profileReport != null){
+            Profiler.enable();
+        }
+        OutputSink sink = OutputSink.forOptions(options);
+
+        //checking for updates while doing the real work
+        Updater updater = new Updater(options.updateUrl);
+        CompletableFuture<Updater.Release> latestRelease = options.noUpdateCheck
+                ? CompletableFuture.completedFuture(null)
+                : updater.checkUpdatesAsync();
+
         if(options.typescript){
             //generating typscript interfaces
-            new TypescriptMaker(options).run();
+            TypescriptMaker typescriptMaker = new TypescriptMaker(options, sink);
+            typescriptMaker.run();
+            //the update may restart the process, the output must be complete before it
+            if(!options.watch){
+                close(sink);
+            }
+            Profiler.report(System.out, options.profileReport);
+            updater.update(latestRelease);
+            if(options.watch){
+                watch(options, typescriptMaker::update);
+            }
             return;
         }
 
         if(options.crud){
-            new CrudMaker(options).run();
+            CrudMaker crudMaker = new CrudMaker(options, sink);
+            crudMaker.run();
+            //the update may restart the process, the output must be complete before it
+            if(!options.watch){
+                close(sink);
+            }
+            Profiler.report(System.out, options.profileReport);
+            updater.update(latestRelease);
+            if(options.watch){
+                watch(options, crudMaker::update);
+            }
             return;
         }
 
         new CommandLine(options).usage(System.out);
+        updater.update(latestRelease);
+
+    }
 
+    private static void close(OutputSink sink) {
+        try (Profiler.Phase phase = Profiler.start("write")) {
+            sink.close();
+        }
+    }
+
+    private static void watch(CLIOptions options, Consumer<Set<File>> onChange) {
+        try {
+            new SourceWatcher(options.directories).watch(onChange);
+        } catch (IOException e) {
+            System.out.println("Cannot watch " + options.directories + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
 
@@ -1,44 +1,214 @@
 package dev.cele.cepispring;
 
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-import com.github.javaparser.utils.SourceRoot;
+import dev.cele.cepispring.model.ClassModel;
+import dev.cele.cepispring.model.ParseCache;
+import dev.cele.cepispring.model.SourcePrefilter;
+import dev.cele.cepispring.profile.Profiler;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class Utils {
-    public static HashMap<File, CompilationUnit> parseDirectory(Path directory){
-        if(directory == null){
-            throw new RuntimeException("No directory specified");
+    private static final int BATCH_KILOBYTES_PER_FILE = 256;
+
+    public static Map<File, List<ClassModel>> parseDirectory(Path directory, int threads, ParseCache cache, SourcePrefilter prefilter){
+        return parseDirectories(directory == null ? Collections.emptyList() : Collections.singletonList(directory), threads, cache, prefilter);
+    }
+
+    /**
+     * Parses all the source roots together, so the files of every module are parsed concurrently in the same pool.
+     */
+    public static Map<File, List<ClassModel>> parseDirectories(List<Path> roots, int threads, ParseCache cache, SourcePrefilter prefilter){
+        List<File> javaFiles = discover(roots);
+        Map<File, List<ClassModel>> javaFilesMap = parseFiles(roots, candidates(roots, javaFiles, prefilter), threads, cache, prefilter);
+        try (Profiler.Phase phase = Profiler.start("cache")) {
+            cache.retainAll(javaFiles);
+            cache.save();
+        }
+
+        //files without types (like package-info.java) are skipped
+        javaFilesMap.values().removeIf(List::isEmpty);
+        return javaFilesMap;
+    }
+
+    /**
+     * Parses the source roots a batch of files at a time, handing the models of every batch to the consumer
+     * before parsing the next one, so only a batch is in memory at once. Files are visited in the same order
+     * as parseDirectories, and nothing is cached.
+     */
+    public static void streamDirectories(List<Path> roots, int threads, int batchSize, SourcePrefilter prefilter, Consumer<List<ClassModel>> consumer) {
+        List<File> candidateFiles = candidates(roots, discover(roots), prefilter);
+        ParseCache cache = ParseCache.disabled();
+        for (int from = 0; from < candidateFiles.size(); from += batchSize) {
+            List<File> batch = candidateFiles.subList(from, Math.min(from + batchSize, candidateFiles.size()));
+            List<ClassModel> models = new ArrayList<>();
+            parseFiles(roots, batch, threads, cache, prefilter).values().forEach(models::addAll);
+            consumer.accept(models);
         }
+    }
 
-        SourceRoot sourceRoot = new SourceRoot(directory);
+    /**
+     * The java files of the source roots, sorted.
+     */
+    private static List<File> discover(List<Path> roots) {
+        if(roots == null || roots.isEmpty()){
+            throw new RuntimeException("No directory specified");
+        }
 
-        List<File> files = getAllFilesInDirectory(directory.toFile(), null);
-        List<File> javaFiles = files.stream().filter(it -> it.getName().endsWith(".java")).collect(Collectors.toList());
+        try (Profiler.Phase phase = Profiler.start("discover")) {
+            List<File> files = new ArrayList<>();
+            for (Path root : roots) {
+                getAllFilesInDirectory(root.toFile(), files);
+            }
+            //nested roots would list the same files twice
+            List<File> javaFiles = files.stream().filter(it -> it.getName().endsWith(".java")).distinct().sorted().collect(Collectors.toList());
+            Profiler.countFiles(javaFiles.size());
+            return javaFiles;
+        }
+    }
 
+    private static List<File> candidates(List<Path> roots, List<File> javaFiles, SourcePrefilter prefilter) {
+        //files that can't match by path and have no content to scan are skipped without reading them
+        return prefilter.scansContent() ? javaFiles : javaFiles.stream()
+                .filter(it -> prefilter.matchesPath(relativize(roots, it)))
+                .collect(Collectors.toList());
+    }
 
-        //creating a compilation unit for each java file
-        HashMap<File, CompilationUnit> javaFilesMap = new HashMap<>();
-        for (File javaFile : javaFiles) {
-            //making java file local
-            Path relativePath = directory.relativize(javaFile.toPath());
-            //extracting the package name from the relativePath
-            String packageName = relativePath.getParent().toString().replace(File.separator, ".");
+    /**
+     * The number of files parsed and generated together to stay within a heap budget,
+     * never less than one per thread.
+     */
+    public static int batchSize(int maxHeapBudgetMegabytes, int threads) {
+        //the tree of a file being parsed is released at once, what stays until the batch is over
+        //is its models and generated files, a few KB, so this leaves a wide margin for the parser
+        long batch = maxHeapBudgetMegabytes * 1024L / BATCH_KILOBYTES_PER_FILE;
+        return (int) Math.max(Math.max(1, threads), Math.min(batch, Integer.MAX_VALUE));
+    }
 
-            //parsing the java file
-            javaFilesMap.put(javaFile, sourceRoot.parse(packageName, javaFile.getName()));
+    /**
+     * Extracts the class models of the given files, parsing only the ones that aren't cached.
+     * Files rejected by the prefilter are mapped to an empty list.
+     */
+    public static Map<File, List<ClassModel>> parseFiles(List<Path> roots, List<File> javaFiles, int threads, ParseCache cache, SourcePrefilter prefilter) {
+        List<List<ClassModel>> models;
+        try (Profiler.Phase phase = Profiler.start("parse")) {
+            Profiler.countFiles(javaFiles.size());
+            models = parseAll(javaFiles, threads, (parser, javaFile) -> {
+                Predicate<byte[]> contentFilter = prefilter.matchesPath(relativize(roots, javaFile))
+                        ? content -> true
+                        : prefilter::matchesContent;
+                try {
+                    return cache.get(javaFile, prefilter.getId(), contentFilter, content -> ClassModel.extract(parseFile(parser, content)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot read " + javaFile, e);
+                }
+            });
         }
 
+        Map<File, List<ClassModel>> javaFilesMap = new LinkedHashMap<>();
+        for (int i = 0; i < javaFiles.size(); i++) {
+            javaFilesMap.put(javaFiles.get(i), models.get(i));
+        }
         return javaFilesMap;
     }
 
+    /**
+     * Returns the path of a file relative to the innermost root containing it, that is its package path
+     */
+    private static Path relativize(List<Path> roots, File file) {
+        Path path = file.toPath();
+        Path innermostRoot = null;
+        for (Path root : roots) {
+            if(path.startsWith(root) && (innermostRoot == null || root.getNameCount() > innermostRoot.getNameCount())){
+                innermostRoot = root;
+            }
+        }
+        return innermostRoot == null ? path.getFileName() : innermostRoot.relativize(path);
+    }
+
+    private static <T> List<T> parseAll(List<File> javaFiles, int threads, BiFunction<JavaParser, File, T> task) {
+        //JavaParser instances aren't thread safe, so every worker gets its own
+        ThreadLocal<JavaParser> parsers = ThreadLocal.withInitial(() -> new JavaParser(parserConfiguration()));
+        return mapConcurrently(javaFiles, threads, javaFile -> task.apply(parsers.get(), javaFile));
+    }
+
+    /**
+     * Only the declarations are extracted from the trees, which are dropped right after:
+     * tokens, comments and the original line separators aren't worth keeping around.
+     */
+    private static ParserConfiguration parserConfiguration() {
+        return new ParserConfiguration()
+                .setStoreTokens(false)
+                .setAttributeComments(false)
+                .setLexicalPreservationEnabled(false)
+                .setDetectOriginalLineSeparator(false);
+    }
+
+    /**
+     * Applies the task to every item on a pool of threads, returning the results in the order of the items.
+     */
+    public static <I, T> List<T> mapConcurrently(List<I> items, int threads, Function<I, T> task) {
+        List<T> results = new ArrayList<>(items.size());
+        if(threads <= 1 || items.size() <= 1){
+            for (I item : items) {
+                results.add(task.apply(item));
+            }
+            return results;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, items.size()));
+        try {
+            List<Future<T>> futures = new ArrayList<>(items.size());
+            for (I item : items) {
+                futures.add(executor.submit(() -> task.apply(item)));
+            }
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while working", e);
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException){
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    private static CompilationUnit parseFile(JavaParser parser, byte[] content) {
+        ParseResult<CompilationUnit> result = parser.parse(new ByteArrayInputStream(content));
+        if(!result.isSuccessful() || !result.getResult().isPresent()){
+            throw new ParseProblemException(result.getProblems());
+        }
+        return result.getResult().get();
+    }
+
     public static List<File> getAllFilesInDirectory(File directory, List<File> output){
         if(output == null){
             output = new ArrayList<>();
@@ -58,49 +228,41 @@ public class Utils {
         return output;
     }
 
-    public static Map<File, CompilationUnit> filterByPackageOrClassContains(Map<File, CompilationUnit> javaFiles, String filterString){
-        String filter = filterString.toLowerCase();
-        return javaFiles.entrySet().stream().filter( entry ->{
-            CompilationUnit cu = entry.getValue();
-            String packageName = cu.getPackageDeclaration().map(it -> it.getNameAsString()).orElse("");
-            String className = cu.getType(0).getNameAsString();
-
-            return packageName.toLowerCase().contains(filter) || className.toLowerCase().endsWith(filter);
-        }).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-    }
-
-    public static Map<File, CompilationUnit> filterByHasAnnotation(Map<File, CompilationUnit> javaFiles, String filterString){
-        return javaFiles.entrySet().stream()
-                .filter(entry ->{
-                    if(!entry.getValue().getType(0).isClassOrInterfaceDeclaration()){
-                        return false;
-                    }
-                    ClassOrInterfaceDeclaration coi = (ClassOrInterfaceDeclaration) entry.getValue().getType(0);
-
-                    return coi.isAnnotationPresent(filterString);
-                }).collect(HashMap::new, (m, e) -> m.put(e.getKey(), e.getValue()), HashMap::putAll);
+    /**
+     * Returns the name of a type without package and type arguments, "java.util.List&lt;Foo&gt;" becomes "List"
+     */
+    public static String getSimpleName(String type) {
+        int genericsStart = type.indexOf('<');
+        String rawType = genericsStart >= 0 ? type.substring(0, genericsStart) : type;
+        return rawType.substring(rawType.lastIndexOf('.') + 1).trim();
     }
 
-    public static Map<File, CompilationUnit> filterByIsClass(Map<File, CompilationUnit> javaFiles) {
-        return javaFiles.entrySet().stream().filter(entry -> {
-            if(!entry.getValue().getType(0).isClassOrInterfaceDeclaration()){
-                return false;
-            }
-            ClassOrInterfaceDeclaration coi = (ClassOrInterfaceDeclaration) entry.getValue().getType(0);
-
-            return !coi.isInterface();
-        }).collect(HashMap::new, (m, e) -> m.put(e.getKey(), e.getValue()), HashMap::putAll);
-    }
+    /**
+     * Returns the type arguments of a type, "Map&lt;String, List&lt;Foo&gt;&gt;" becomes ["String", "List&lt;Foo&gt;"]
+     */
+    public static List<String> getTypeArguments(String type) {
+        int start = type.indexOf('<');
+        int end = type.lastIndexOf('>');
+        if(start < 0 || end < start){
+            return Collections.emptyList();
+        }
 
-    public static Map<File, CompilationUnit> filterByIsInterface(Map<File, CompilationUnit> javaFiles) {
-        return javaFiles.entrySet().stream().filter(entry -> {
-            if(!entry.getValue().getType(0).isClassOrInterfaceDeclaration()){
-                return false;
+        List<String> arguments = new ArrayList<>();
+        int depth = 0;
+        int argumentStart = start + 1;
+        for (int i = start + 1; i < end; i++) {
+            char c = type.charAt(i);
+            if(c == '<'){
+                depth++;
+            } else if(c == '>'){
+                depth--;
+            } else if(c == ',' && depth == 0){
+                arguments.add(type.substring(argumentStart, i).trim());
+                argumentStart = i + 1;
             }
-            ClassOrInterfaceDeclaration coi = (ClassOrInterfaceDeclaration) entry.getValue().getType(0);
-
-            return coi.isInterface();
-        }).collect(HashMap::new, (m, e) -> m.put(e.getKey(), e.getValue()), HashMap::putAll);
+        }
+        arguments.add(type.substring(argumentStart, end).trim());
+        return arguments;
     }
 
     public static String toKebabCase(String className) {
@@ -1,34 +1,59 @@
 package dev.cele.cepispring.crud;
 
-import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.NodeList;
-import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-import com.github.javaparser.ast.body.VariableDeclarator;
-import com.github.javaparser.ast.type.ClassOrInterfaceType;
-import com.github.javaparser.ast.type.Type;
 import dev.cele.cepispring.CLIOptions;
 import dev.cele.cepispring.Utils;
+import dev.cele.cepispring.model.ClassModel;
+import dev.cele.cepispring.model.FieldModel;
+import dev.cele.cepispring.model.ParseCache;
+import dev.cele.cepispring.model.ProjectIndex;
+import dev.cele.cepispring.model.ProjectSymbols;
+import dev.cele.cepispring.model.SourcePrefilter;
+import dev.cele.cepispring.model.TypeResolver;
+import dev.cele.cepispring.output.OutputSink;
+import dev.cele.cepispring.profile.Profiler;
+import dev.cele.cepispring.template.Template;
 
 import java.io.File;
-import java.io.PrintWriter;
-import java.io.StringWriter;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class CrudMaker implements Runnable {
-    private final CLIOptions options;
+    //skipping before parsing the files that can't be in any group
+    private static final SourcePrefilter PREFILTER = SourcePrefilter.forAnnotations("Repository", "Entity", "Service", "RestController")
+            .orPackageOrClassContains("dto");
+    //the second pass of the streaming mode only needs the entities
+    private static final SourcePrefilter ENTITY_PREFILTER = SourcePrefilter.forAnnotations("Entity");
+    //the hibernate settings of the bulk operations, written next to the generated packages
+    private static final String BATCHING_PROPERTIES = "hibernate-batching.properties";
+    private static final Pattern JAVA_LANG = Pattern.compile("\\bjava\\.lang\\.(?=[A-Z])");
+    //whether a raw type is a collection or a map, the project classes aren't
+    private static final Map<String, Boolean> COLLECTION_TYPES = new ConcurrentHashMap<>();
+    //the fields with these annotations aren't columns of the entity table
+    private static final List<String> NOT_COLUMN_ANNOTATIONS = Arrays.asList("OneToOne", "OneToMany", "ManyToOne", "ManyToMany", "ElementCollection", "Transient");
 
-    private final Map<File, CompilationUnit> entities;
-    private final Map<File, CompilationUnit> repositories;
-    private final Map<File, CompilationUnit> services;
-    private final Map<File, CompilationUnit> servicesImpl;
-    private final Map<File, CompilationUnit> controllers;
+    private final CLIOptions options;
+    private final ParseCache cache;
+    private final OutputSink sink;
 
-    private final Map<File, CompilationUnit> dtos;
+    //null when streaming
+    private ProjectIndex index;
+    private final ProjectSymbols symbols;
 
     private final String entityPackage;
     private final String repositoryPackage;
@@ -36,6 +61,7 @@ public class CrudMaker implements Runnable {
     private final String serviceImplPackage;
     private final String controllerPackage;
     private final String dtoPackage;
+    private final String mapperPackage;
 
     private final String entityPath;
     private final String repositoryPath;
@@ -43,401 +69,585 @@ public class CrudMaker implements Runnable {
     private final String serviceImplPath;
     private final String controllerPath;
     private final String dtoPath;
+    private final String mapperPath;
+
+    private final Template dtoTemplate;
+    private final Template repositoryTemplate;
+    private final Template serviceTemplate;
+    private final Template serviceImplTemplate;
+    private final Template controllerTemplate;
+    private final Template mapperTemplate;
+    private final Template summaryTemplate;
+    private final Template batchingTemplate;
+    private final Map<String, Object> templateValues;
+
+    //the entities when the generation started, fully qualified
+    private volatile Set<String> entityTypes;
+    //the entities whose mapper is generated, fully qualified, empty without --mappers
+    private volatile Set<String> mapperTypes = Collections.emptySet();
+    //the mappers written by this run, the watch updates can replace them
+    private final Set<String> writtenMappers = ConcurrentHashMap.newKeySet();
+    private final TypeResolver resolver;
+
+
+    public CrudMaker(CLIOptions options, OutputSink sink) {
+        this(options, sink, ParseCache.forOptions(options));
+    }
 
-
-    public CrudMaker(CLIOptions options) {
+    public CrudMaker(CLIOptions options, OutputSink sink, ParseCache cache) {
         this.options = options;
-
-
-        //scanning the directory
-        Map<File, CompilationUnit> javaFiles = Utils.parseDirectory(options.directory);
+        this.sink = sink;
+        this.cache = cache;
 
         //region filtering the classes in groups
-
-        //finding repositories
-        repositories = Utils.filterByHasAnnotation(javaFiles, "Repository");
-
-        //finding the entities
-        entities = Utils.filterByHasAnnotation(javaFiles, "Entity");
-
-
-        //finding services implementation
-        servicesImpl = Utils.filterByIsClass(
-                Utils.filterByHasAnnotation(javaFiles, "Service")
-        );
-
-        //finding services interface
-        List<String> servicesInterfacesName = servicesImpl.values().stream().flatMap(cu ->
-                ((ClassOrInterfaceDeclaration)cu.getType(0)).getImplementedTypes().stream()
-        ).map(type -> type.asClassOrInterfaceType().getNameAsString()).distinct().collect(Collectors.toList());
-
-        services = Utils.filterByIsInterface(javaFiles).entrySet().stream().filter(entry ->{
-            return servicesInterfacesName.contains(entry.getValue().getType(0).getNameAsString());
-        }).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-
-        //finding controllers
-        controllers = Utils.filterByHasAnnotation(javaFiles, "RestController");
-
-        //finding DTOs
-        dtos = Utils.filterByPackageOrClassContains(javaFiles,"dto");
+        symbols = options.maxHeapBudget != null
+                ? scanSymbols(Utils.batchSize(options.maxHeapBudget, options.threads))
+                : indexSymbols();
+
+        try (Profiler.Phase phase = Profiler.start("classify")) {
+            entityTypes = symbols.getEntityTypes();
+            //the index is updated by the watch mode, its resolver must follow it
+            resolver = index != null
+                    ? new TypeResolver(options.directories, type -> index.getByFullyQualifiedName(type).isPresent())
+                    : symbols.getResolver();
+
+            //region Finding the package names
+            //finding the entity package
+            entityPackage = symbols.getEntityPackage().get();
+            entityPath = entityPackage.replace(".", "/");
+
+            //finding the repository package
+            repositoryPackage = symbols.getRepositoryPackage().get();
+            repositoryPath = repositoryPackage.replace(".", "/");
+
+            //finding the service package
+            servicePackage = symbols.getServicePackage().get();
+            servicePath = servicePackage.replace(".", "/");
+
+            //finding the serviceImpl package
+            serviceImplPackage = symbols.getServiceImplPackage().get();
+            serviceImplPath = serviceImplPackage.replace(".", "/");
+
+            //finding the controller package
+            controllerPackage = symbols.getControllerPackage().get();
+            controllerPath = controllerPackage.replace(".", "/");
+
+            //finding the dto package
+            dtoPackage = symbols.getDtoPackage().get();
+            dtoPath = dtoPackage.replace(".", "/");
+
+            //the mappers go next to the dto package
+            mapperPackage = dtoPackage.contains(".") ? dtoPackage.substring(0, dtoPackage.lastIndexOf('.')) + ".mapper" : "mapper";
+            mapperPath = mapperPackage.replace(".", "/");
+            //endregion
+        }
         //endregion
 
-        //region Finding the package names
-        //finding the entity package
-        entityPackage = entities.values().stream().findFirst().get().getPackageDeclaration().get().getNameAsString();
-        entityPath = entityPackage.replace(".", "/");
+        try (Profiler.Phase phase = Profiler.start("generate")) {
+            //region Loading the templates
+            dtoTemplate = Template.load("crud/dto.java.tpl", options.templates);
+            repositoryTemplate = Template.load("crud/repository.java.tpl", options.templates);
+            serviceTemplate = Template.load("crud/service.java.tpl", options.templates);
+            serviceImplTemplate = Template.load("crud/serviceImpl.java.tpl", options.templates);
+            controllerTemplate = Template.load("crud/controller.java.tpl", options.templates);
+            mapperTemplate = Template.load("crud/mapper.java.tpl", options.templates);
+            summaryTemplate = Template.load("crud/summary.java.tpl", options.templates);
+            batchingTemplate = Template.load("crud/batching.properties.tpl", options.templates);
+
+            templateValues = new HashMap<>();
+            templateValues.put("entityPackage", entityPackage);
+            templateValues.put("repositoryPackage", repositoryPackage);
+            templateValues.put("servicePackage", servicePackage);
+            templateValues.put("serviceImplPackage", serviceImplPackage);
+            templateValues.put("controllerPackage", controllerPackage);
+            templateValues.put("dtoPackage", dtoPackage);
+            templateValues.put("mapperPackage", mapperPackage);
+            templateValues.put("maxPageSize", options.maxPageSize);
+            templateValues.put("unpaged", options.unpaged);
+            //endregion
+        }
 
-        //finding the repository package
-        repositoryPackage = repositories.values().stream().findFirst().get().getPackageDeclaration().get().getNameAsString();
-        repositoryPath = repositoryPackage.replace(".", "/");
+    }
 
-        //finding the service package
-        servicePackage = services.values().stream().findFirst().get().getPackageDeclaration().get().getNameAsString();
-        servicePath = servicePackage.replace(".", "/");
+    /**
+     * Parses the whole project, keeping it in the index for the watch updates.
+     */
+    private ProjectSymbols indexSymbols() {
+        ProjectSymbols symbols = new ProjectSymbols(options.directories);
 
-        //finding the serviceImpl package
-        serviceImplPackage = servicesImpl.values().stream().findFirst().get().getPackageDeclaration().get().getNameAsString();
-        serviceImplPath = serviceImplPackage.replace(".", "/");
+        //scanning the directory
+        Map<File, List<ClassModel>> parsedFiles = Utils.parseDirectories(options.directories, options.threads, cache, PREFILTER);
+        try (Profiler.Phase phase = Profiler.start("classify")) {
+            index = new ProjectIndex(parsedFiles);
+            parsedFiles.values().forEach(symbols::addAll);
+        }
 
-        //finding the controller package
-        controllerPackage = controllers.values().stream().findFirst().get().getPackageDeclaration().get().getNameAsString();
-        controllerPath = controllerPackage.replace(".", "/");
+        //the interfaces have no annotation, so they are looked up by file name
+        Map<File, List<ClassModel>> interfaceFiles = Utils.parseDirectories(options.directories, options.threads, cache, SourcePrefilter.forClassNames(symbols.getServiceInterfaceNames()));
+        try (Profiler.Phase phase = Profiler.start("classify")) {
+            index.putAll(interfaceFiles);
+            interfaceFiles.values().forEach(symbols::addAll);
+        }
+        return symbols;
+    }
 
-        //finding the dto package
-        dtoPackage = dtos.values().stream().findFirst().get().getPackageDeclaration().get().getNameAsString();
-        dtoPath = dtoPackage.replace(".", "/");
-        //endregion
+    /**
+     * First pass of the streaming mode: parses the project a batch at a time, keeping only the symbols.
+     */
+    private ProjectSymbols scanSymbols(int batchSize) {
+        ProjectSymbols symbols = new ProjectSymbols(options.directories);
+        Utils.streamDirectories(options.directories, options.threads, batchSize, PREFILTER, models -> {
+            try (Profiler.Phase phase = Profiler.start("classify")) {
+                symbols.addAll(models);
+            }
+        });
 
+        //the interfaces have no annotation, so they are looked up by file name
+        Utils.streamDirectories(options.directories, options.threads, batchSize, SourcePrefilter.forClassNames(symbols.getServiceInterfaceNames()), models -> {
+            try (Profiler.Phase phase = Profiler.start("classify")) {
+                symbols.addAll(models);
+            }
+        });
+        return symbols;
     }
 
     @Override
     public void run() {
-        //getting the entities in the repositories
-        List<ClassOrInterfaceType> repositoriesEntities = repositories.values().stream()
-                .map(repo -> repo.getType(0).asClassOrInterfaceDeclaration())
-                .map(repo -> repo.getExtendedTypes().get(0).asClassOrInterfaceType())
-                .map(jpaRepo -> jpaRepo.getTypeArguments().get().get(0).asClassOrInterfaceType()).collect(Collectors.toList());
+        if(index == null){
+            runStreaming(Utils.batchSize(options.maxHeapBudget, options.threads));
+            return;
+        }
 
         //getting unmapped entities
-        Map<File, CompilationUnit> unmappedEntities = entities.entrySet().stream().filter(entry ->
-                repositoriesEntities.stream().noneMatch(
-                    repoEntity -> repoEntity.getNameAsString().equals(entry.getValue().getType(0).getNameAsString())
-                )
-        ).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        List<ClassModel> unmappedEntities;
+        try (Profiler.Phase phase = Profiler.start("classify")) {
+            unmappedEntities = getUnmappedEntities();
+        }
 
         System.out.println("Found " + unmappedEntities.size() + " unmapped entities:");
-        unmappedEntities.forEach((file, cu) -> System.out.println(cu.getType(0).getNameAsString()));
+        unmappedEntities.forEach(model -> System.out.println(model.name));
 
         //creating cruds for unmapped entities
-        unmappedEntities.forEach((file, entity) -> createCrud(entity));
+        try (Profiler.Phase phase = Profiler.start("generate")) {
+            mapperTypes = getMapperTypes(unmappedEntities.stream().map(ClassModel::getFullyQualifiedName).collect(Collectors.toList()));
+            generateCruds(unmappedEntities);
+            if(!unmappedEntities.isEmpty()){
+                generateBatchingProperties();
+            }
+        }
+        try (Profiler.Phase phase = Profiler.start("write")) {
+            sink.flush();
+        }
     }
 
-    private void createCrud(CompilationUnit entityCu) {
-        EntityInfo entity = new EntityInfo(entityCu);
-
-        //create DTO???
-        //ONLY IF IT DOESN'T EXIST
+    /**
+     * Second pass of the streaming mode: generates and writes the cruds of the unmapped entities of every batch
+     * of files before parsing the next one.
+     */
+    private void runStreaming(int batchSize) {
+        Set<String> unmappedEntityTypes = symbols.getUnmappedEntityTypes();
+        System.out.println("Found " + unmappedEntityTypes.size() + " unmapped entities:");
+        unmappedEntityTypes.forEach(type -> System.out.println(Utils.getSimpleName(type)));
+        mapperTypes = getMapperTypes(unmappedEntityTypes);
+
+        Utils.streamDirectories(options.directories, options.threads, batchSize, ENTITY_PREFILTER, models -> {
+            List<ClassModel> unmappedEntities = models.stream()
+                    .filter(model -> (model.isClass() || model.isInterface()) && model.isAnnotationPresent("Entity"))
+                    .filter(model -> unmappedEntityTypes.contains(model.getFullyQualifiedName()))
+                    .collect(Collectors.toList());
+            if(unmappedEntities.isEmpty()){
+                return;
+            }
 
-        generateAndPrint(entity, "Dto", dtoPath, this::createDto);
-        generateAndPrint(entity, "Repository", repositoryPath, this::createRepository);
-        generateAndPrint(entity, "Service", servicePath, this::createService);
-        generateAndPrint(entity, "ServiceImpl", serviceImplPath, this::createServiceImpl);
-        generateAndPrint(entity, "Controller", controllerPath, this::createController);
+            try (Profiler.Phase phase = Profiler.start("generate")) {
+                generateCruds(unmappedEntities);
+            }
+            try (Profiler.Phase phase = Profiler.start("write")) {
+                sink.flush();
+            }
+        });
 
+        if(!unmappedEntityTypes.isEmpty()){
+            try (Profiler.Phase phase = Profiler.start("generate")) {
+                generateBatchingProperties();
+            }
+            try (Profiler.Phase phase = Profiler.start("write")) {
+                sink.flush();
+            }
+        }
     }
 
-    private void generateAndPrint(EntityInfo entity, String subfix, String packagePath, Function<EntityInfo, String> call) {
-        System.out.println("\n\nCreating "+subfix+" for " + entity.name);
-        System.out.println("==============================================================");
-
-        String output = call.apply(entity);
-
-        System.out.println(output);
-
-        if(options.output != null) {
-            try {
-                System.out.println("Writing to " + options.output + "/" + packagePath +"/" + entity.name + subfix + ".java");
-                Files.write(options.output.resolve(packagePath +"/" + entity.name + subfix + ".java"), output.getBytes());
-            } catch (Exception e) {
-                System.out.println("Error writing " + subfix);
-                e.printStackTrace();
+    /**
+     * Re-parses the changed files and regenerates the cruds of the unmapped entities declared in them.
+     * If an entity was added or removed every crud is regenerated, since DTO field types depend on them.
+     */
+    public void update(Collection<File> changedFiles) {
+        Set<String> entitiesBefore = getEntityTypes();
+        //a repository added or removed changes which entities get a crud
+        Set<String> unmappedBefore = getUnmappedEntities().stream().map(ClassModel::getFullyQualifiedName).collect(Collectors.toSet());
+
+        //the types declared in the changed files, before and after the change
+        Set<String> changedTypes = new HashSet<>();
+        List<File> existingFiles = new ArrayList<>();
+        for (File file : changedFiles) {
+            index.getFiles().getOrDefault(file, Collections.emptyList()).forEach(model -> changedTypes.add(model.getFullyQualifiedName()));
+            if(file.exists()){
+                existingFiles.add(file);
+            } else {
+                index.remove(file);
             }
         }
 
+        Set<ClassModel> changedModels = new HashSet<>();
+        Utils.parseFiles(options.directories, existingFiles, options.threads, cache, PREFILTER).forEach((file, models) -> {
+            index.put(file, models);
+            changedModels.addAll(models);
+            models.forEach(model -> changedTypes.add(model.getFullyQualifiedName()));
+        });
+        cache.save();
+        resolver.invalidate(changedTypes);
+
+        Set<String> entitiesAfter = getEntityTypes();
+        boolean entitiesChanged = !entitiesBefore.equals(entitiesAfter);
+        List<ClassModel> unmappedEntities = getUnmappedEntities();
+        Set<String> unmappedAfter = unmappedEntities.stream().map(ClassModel::getFullyQualifiedName).collect(Collectors.toCollection(LinkedHashSet::new));
+        //the sink can't delete, the cruds already written for them stay
+        unmappedBefore.stream()
+                .filter(type -> !unmappedAfter.contains(type) && entitiesAfter.contains(type))
+                .forEach(type -> System.out.println(Utils.getSimpleName(type) + " has a repository now, its crud isn't generated anymore"));
+
+        Set<String> mappersBefore = mapperTypes;
+        mapperTypes = getMapperTypes(unmappedAfter);
+        //an entity moving between its mapper and the ModelMapper changes its service impl, and the mappers of the related entities
+        boolean mappersChanged = !mappersBefore.equals(mapperTypes);
+        generateCruds(unmappedEntities.stream()
+                .filter(entity -> entitiesChanged || mappersChanged || changedModels.contains(entity)
+                        || !unmappedBefore.contains(entity.getFullyQualifiedName()))
+                .collect(Collectors.toList()));
+        sink.flush();
     }
 
+    private Set<String> getEntityTypes() {
+        return Collections.unmodifiableSet(index.getAnnotatedWith("Entity").stream().map(ClassModel::getFullyQualifiedName).collect(Collectors.toSet()));
+    }
 
-    private String createDto(EntityInfo entityInfo) {
-
-        StringWriter out = new StringWriter();
-        PrintWriter writer = new PrintWriter(out);
-
-        //writing the dto
-        //package
-        writer.println("package " + dtoPackage + ";\n");
-
-        //imports
-        writer.println("import java.util.List;");
-        writer.println("import lombok.*;\n");
+    private List<ClassModel> getUnmappedEntities() {
+        //getting the entities in the repositories
+        Set<String> repositoriesEntities = index.getAnnotatedWith("Repository").stream()
+                .map(repo -> resolver.resolve(repo, Utils.getTypeArguments(repo.extendedTypes.get(0)).get(0)))
+                .collect(Collectors.toSet());
 
-        //class
-        writer.println("@Data @NoArgsConstructor @AllArgsConstructor");
-        writer.println("public class " + entityInfo.dtoNname+ " {");
+        return index.getAnnotatedWith("Entity").stream()
+                .filter(entity -> !repositoriesEntities.contains(entity.getFullyQualifiedName()))
+                .collect(Collectors.toList());
+    }
 
-        //fields
-        entityInfo.classDec.getFields().stream().flatMap( field ->
-                field.getVariables().stream()
-        ).forEach(variable -> {
-            //checking if the type is an entity
-            String type = variable.getTypeAsString();
+    /**
+     * The entities, among the ones getting a crud, that get a mapper too: without --mappers none,
+     * and never the ones whose mapper already exists in the project or in the output, which isn't replaced.
+     * A mapper calls the mappers of the related entities, the entities related to one without a mapper keep the ModelMapper.
+     */
+    private Set<String> getMapperTypes(Collection<String> unmappedEntityTypes) {
+        if(!options.mappers){
+            return Collections.emptySet();
+        }
+        Set<String> types = new LinkedHashSet<>();
+        for (String type : unmappedEntityTypes) {
+            String mapperFile = getMapperFile(Utils.getSimpleName(type));
+            if(!writtenMappers.contains(mapperFile) && mapperExists(mapperFile)){
+                System.out.println("Skipping the mapper of " + Utils.getSimpleName(type) + ", " + mapperFile + " already exists");
+                continue;
+            }
+            types.add(type);
+        }
 
-            if(isTypeEntity(type)){
-                type += "Dto";
-            } else if (variable.getTypeAsString().contains("List")) {
-                String innerType = variable.getTypeAsString().substring(variable.getTypeAsString().indexOf("<")+1, variable.getTypeAsString().indexOf(">"));
-                if(isTypeEntity(innerType)){
-                    type = "List<"+innerType+"Dto>";
+        //removing an entity can leave the ones related to it without a mapper too
+        Set<String> entities = index != null ? getEntityTypes() : symbols.getEntityTypes();
+        boolean removed = true;
+        while (removed) {
+            removed = false;
+            for (String type : new ArrayList<>(types)) {
+                Optional<String> unmapped = getRelatedEntityTypes(type, entities).stream()
+                        .filter(related -> !types.contains(related))
+                        .findFirst();
+                if(unmapped.isPresent()){
+                    System.out.println("Keeping the ModelMapper for " + Utils.getSimpleName(type) + ", " + Utils.getSimpleName(unmapped.get()) + " has no generated mapper");
+                    types.remove(type);
+                    removed = true;
                 }
             }
-
-            writer.println("\tprivate " + type + " " + variable.getNameAsString() + ";");
-        });
-
-        //end class
-        writer.println("}");
-
-        return out.toString();
+        }
+        return Collections.unmodifiableSet(types);
     }
 
-    private boolean isTypeEntity(String typeAsString) {
-        return entities.values().stream()
-                .map(it -> it.getType(0).asClassOrInterfaceDeclaration())
-                .anyMatch(it ->
-                        typeAsString.equals(it.getNameAsString())
-                );
+    private Set<String> getRelatedEntityTypes(String entityType, Set<String> entities) {
+        if(index == null){
+            return symbols.getRelatedEntityTypes(entityType);
+        }
+        return index.getByFullyQualifiedName(entityType)
+                .map(model -> ProjectSymbols.getFieldTypes(resolver, model).stream()
+                        .filter(entities::contains)
+                        .collect(Collectors.toSet()))
+                .orElse(Collections.emptySet());
     }
 
+    private String getMapperFile(String entityName) {
+        return mapperPath + "/" + entityName + "Mapper.java";
+    }
 
-    private String createRepository(EntityInfo entity) {
-        StringWriter out = new StringWriter();
-        PrintWriter writer = new PrintWriter(out);
-
-        //writing the repository
-        //package
-        writer.println("package " + repositoryPackage + ";\n");
+    private boolean mapperExists(String mapperFile) {
+        for (Path directory : options.directories) {
+            if(Files.isRegularFile(directory.resolve(mapperFile))){
+                return true;
+            }
+        }
+        return options.output != null && Files.isRegularFile(options.output.resolve(mapperFile));
+    }
 
-        //imports
-        writer.println("import org.springframework.data.jpa.repository.JpaRepository;");
-        writer.println("import org.springframework.stereotype.Repository;");
-        writer.println("import " + entity.fullyQualifiedName + ";\n");
+    /**
+     * Renders the cruds on a pool of threads, then hands the files to the sink in entity order,
+     * so the output is the same whatever the number of threads.
+     */
+    private void generateCruds(List<ClassModel> entities) {
+        //the renderers only read this snapshot, the index isn't touched while they work
+        if(index != null){
+            entityTypes = getEntityTypes();
+        }
 
-        //interface
-        writer.println("@Repository");
-        writer.print("public interface "+entity.name+"Repository ");
-        writer.print("extends JpaRepository<"+entity.name+", "+entity.idTypeName+"> {\n\n}");
+        List<Map<String, String>> cruds = Utils.mapConcurrently(entities, options.threads, this::createCrud);
+        for (Map<String, String> crud : cruds) {
+            crud.forEach(sink::write);
+        }
+    }
 
-        return out.toString();
+    private void generateBatchingProperties() {
+        Profiler.countFiles(1);
+        sink.write(BATCHING_PROPERTIES, batchingTemplate.render(templateValues));
     }
-    private String createService(EntityInfo entity) {
-        StringWriter out = new StringWriter();
-        PrintWriter writer = new PrintWriter(out);
 
-        //writing the service
-        //package
-        writer.println("package " + servicePackage + ";\n");
+    private Map<String, String> createCrud(ClassModel entityModel) {
+        EntityInfo entity = entityInfo(entityModel);
+        Map<String, String> files = new LinkedHashMap<>();
 
-        //imports
-        writer.println("import " + dtoPackage+"."+entity.dtoNname + ";\n");
+        //create DTO???
+        //ONLY IF IT DOESN'T EXIST
 
-        writer.println("import java.util.List;");
-        writer.println("import java.util.Optional;\n");
+        generate(files, entity, "Dto", dtoPath, this::createDto);
+        generate(files, entity, "Summary", dtoPath, this::createSummary);
+        if(entity.mapper){
+            generate(files, entity, "Mapper", mapperPath, this::createMapper);
+            writtenMappers.add(getMapperFile(entity.name));
+        }
+        generate(files, entity, "Repository", repositoryPath, this::createRepository);
+        generate(files, entity, "Service", servicePath, this::createService);
+        generate(files, entity, "ServiceImpl", serviceImplPath, this::createServiceImpl);
+        generate(files, entity, "Controller", controllerPath, this::createController);
 
-        //interface
-        writer.println("public interface "+entity.name+"Service {");
+        return files;
+    }
 
-        //methods
-        writer.println("\tList<"+entity.dtoNname+"> findAll();\n");
-        writer.println("\tOptional<"+entity.dtoNname+"> findById("+entity.idTypeName+" id);\n");
-        writer.println("\t"+entity.dtoNname+" save("+entity.dtoNname+" "+entity.lowerName+"DtoToSave);\n");
-        writer.println("\tboolean existsById("+entity.idTypeName+" id);\n");
-        writer.println("\tvoid delete("+entity.dtoNname+" "+entity.lowerName+"DtoToDelete);");
+    private static void generate(Map<String, String> files, EntityInfo entity, String subfix, String packagePath, Function<EntityInfo, String> call) {
+        Profiler.countFiles(1);
+        files.put(packagePath + "/" + entity.name + subfix + ".java", call.apply(entity));
+    }
 
-        //end interface
-        writer.println("}");
 
-        return out.toString();
-    }
+    /**
+     * The entity with its fields, and the relations fetched with it.
+     */
+    private EntityInfo entityInfo(ClassModel model) {
+        List<Map<String, Object>> fields = fieldValues(model);
 
-    private String createServiceImpl(EntityInfo entity) {
-
-        StringWriter out = new StringWriter();
-        PrintWriter writer = new PrintWriter(out);
-
-        //writing the service implementation
-        //package
-        writer.println("package " + serviceImplPackage + ";\n");
-
-        //imports
-        writer.println("import org.springframework.stereotype.Service;\n");
-
-        writer.println("import " + entity.fullyQualifiedName + ";");
-        writer.println("import " + dtoPackage+"."+entity.dtoNname + ";");
-        writer.println("import " + servicePackage + "." + entity.name +"Service;");
-        writer.println("import " + repositoryPackage + "." + entity.name +"Repository;\n");
-
-        writer.println("import java.util.List;");
-        writer.println("import java.util.Optional;");
-        writer.println("import java.util.stream.Collectors;\n");
-
-        writer.println("import org.modelmapper.ModelMapper;\n");
-
-        //class
-        writer.println("@Service");
-        writer.println("public class "+entity.name+"ServiceImpl implements "+entity.name+"Service {\n");
-
-        //autowired fields
-        writer.println("\tprivate final "+entity.name+"Repository "+entity.repository+";");
-        writer.println("\tprivate final ModelMapper modelMapper;\n");
-
-        //constructor
-        writer.println("\tpublic "+entity.name+"ServiceImpl("+entity.name+"Repository "+entity.repository+", ModelMapper modelMapper) {");
-        writer.println("\t\tthis."+entity.repository+" = "+entity.repository+";");
-        writer.println("\t\tthis.modelMapper = modelMapper;");
-        writer.println("\t}\n");
-
-        //methods
-        writer.println("\t@Override");
-        writer.println("\tpublic List<"+entity.dtoNname+"> findAll() {");
-        writer.println("\t\treturn "+entity.repository+".findAll().stream().map(it ->");
-        writer.println("\t\t\tmodelMapper.map(it, "+entity.dtoNname+".class)");
-        writer.println("\t\t).collect(Collectors.toList());");
-        writer.println("\t}\n");
-
-        writer.println("\t@Override");
-        writer.println("\tpublic Optional<"+entity.dtoNname+"> findById("+entity.idTypeName+" id) {");
-        writer.println("\t\tOptional<"+entity.name+"> "+entity.lowerName+" = "+entity.repository+".findById(id);");
-        writer.println("\t\treturn "+entity.lowerName+".map(it -> modelMapper.map(it, "+entity.dtoNname+".class));");
-        writer.println("\t}\n");
-
-        writer.println("\t@Override");
-        writer.println("\tpublic "+entity.dtoNname+" save("+entity.dtoNname+" "+entity.lowerName+"ToSave) {");
-        writer.println("\t\t"+entity.name+" saved = "+entity.repository+".save(modelMapper.map("+entity.lowerName+"ToSave, "+entity.name+".class));");
-        writer.println("\t\treturn modelMapper.map(saved, "+entity.dtoNname+".class);");
-        writer.println("\t}\n");
-
-        writer.println("\t@Override");
-        writer.println("\tpublic boolean existsById("+entity.idTypeName+" id) {");
-        writer.println("\t\treturn "+entity.repository+".existsById(id);");
-        writer.println("\t}\n");
-
-        writer.println("\t@Override");
-        writer.println("\tpublic void delete("+entity.dtoNname+" "+entity.lowerName+"ToDelete) {");
-        writer.println("\t\t"+entity.repository+".delete(modelMapper.map("+entity.lowerName+"ToDelete, "+entity.name+".class));");
-        writer.println("\t}\n");
-
-        //end class
-        writer.println("}");
-
-        return out.toString();
+        List<String> relations = new ArrayList<>();
+        List<String> listRelations = new ArrayList<>();
+        for (Map<String, Object> field : fields) {
+            if(Boolean.TRUE.equals(field.get("entity"))){
+                relations.add((String) field.get("name"));
+            } else if(Boolean.TRUE.equals(field.get("entityList"))){
+                listRelations.add((String) field.get("name"));
+            }
+        }
+        //hibernate can't fetch several lists in the same query
+        if(listRelations.size() == 1){
+            relations.addAll(listRelations);
+        }
+        return new EntityInfo(model, fields, relations, mapperTypes.contains(model.getFullyQualifiedName()), templateValues);
     }
 
-    private String createController(EntityInfo entity) {
-        StringWriter out = new StringWriter();
-        PrintWriter writer = new PrintWriter(out);
-
-        //writing the controller
-        //package
-        writer.println("package " + controllerPackage + ";\n");
+    String createDto(EntityInfo entityInfo) {
+        return dtoTemplate.render(entityInfo.templateValues);
+    }
 
-        //imports
-        writer.println("import org.springframework.web.bind.annotation.*;");
+    /**
+     * A mapper copying the fields one by one, following the same relations as the DTO.
+     */
+    String createMapper(EntityInfo entityInfo) {
+        return mapperTemplate.render(entityInfo.templateValues);
+    }
 
-        writer.println("import " + dtoPackage+"."+entity.dtoNname + ";");
-        writer.println("import " + servicePackage + "." + entity.name +"Service;\n");
+    /**
+     * The projection of the fields that aren't relations, read by the list endpoints.
+     */
+    String createSummary(EntityInfo entityInfo) {
+        return summaryTemplate.render(entityInfo.templateValues);
+    }
 
-        writer.println("import javax.validation.Valid;");
-        writer.println("import java.util.List;");
-        writer.println("import java.util.Optional;\n");
+    /**
+     * The fields of the DTO of an entity, where the entities, alone or in a List, are replaced by their DTO.
+     */
+    private List<Map<String, Object>> fieldValues(ClassModel model) {
+        List<Map<String, Object>> fields = new ArrayList<>(model.fields.size());
+        for (FieldModel field : model.fields) {
+            //checking if the type is an entity
+            String type = field.type;
+            String relatedEntity = null;
+            boolean isList = false;
 
-        //class
-        writer.println("@RestController");
-        writer.println("@RequestMapping(\"/"+Utils.toKebabCase(entity.name)+"\")");
-        writer.println("public class "+entity.name+"Controller {");
+            if(isTypeEntity(model, type)){
+                type += "Dto";
+                relatedEntity = Utils.getSimpleName(field.type);
+            } else if (field.type.contains("List")) {
+                String innerType = field.type.substring(field.type.indexOf("<")+1, field.type.indexOf(">"));
+                if(isTypeEntity(model, innerType)){
+                    type = "List<"+innerType+"Dto>";
+                    relatedEntity = Utils.getSimpleName(innerType);
+                    isList = true;
+                }
+            }
 
-        //autowired fields
-        writer.println("\tprivate final "+entity.name+"Service "+entity.lowerName+"Service;");
+            String capitalizedName = Character.toUpperCase(field.name.charAt(0)) + field.name.substring(1);
+            String qualifiedType = resolver.qualify(model, field.type);
+            Map<String, Object> fieldValues = new HashMap<>(16);
+            fieldValues.put("type", type);
+            //the summaries have no imports, java.lang is the only package left out
+            fieldValues.put("qualifiedType", JAVA_LANG.matcher(qualifiedType).replaceAll(""));
+            fieldValues.put("name", field.name);
+            //like the accessors generated by lombok
+            fieldValues.put("getter", (field.type.equals("boolean") ? "is" : "get") + capitalizedName);
+            fieldValues.put("setter", "set" + capitalizedName);
+            fieldValues.put("plain", relatedEntity == null);
+            //the mappers don't copy what lombok has no accessors for, nor what isn't persisted
+            fieldValues.put("copied", relatedEntity == null && !field.hasModifier("static") && !isTransient(field));
+            fieldValues.put("summary", relatedEntity == null && isColumn(field, qualifiedType));
+            fieldValues.put("entity", relatedEntity != null && !isList);
+            fieldValues.put("entityList", isList);
+            fieldValues.put("relatedEntity", relatedEntity == null ? "" : relatedEntity);
+            fields.add(fieldValues);
+        }
+        return fields;
+    }
 
-        //constructor
-        writer.println("\tpublic "+entity.name+"Controller("+entity.name+"Service "+entity.lowerName+"Service) {");
-        writer.println("\t\tthis."+entity.lowerName+"Service = "+entity.lowerName+"Service;");
-        writer.println("\t}\n");
+    /**
+     * Whether the field is read from the entity table: not static nor transient, nor a relation or a collection,
+     * whatever the type of its elements.
+     */
+    private static boolean isColumn(FieldModel field, String qualifiedType) {
+        if(field.hasModifier("static") || isTransient(field) || NOT_COLUMN_ANNOTATIONS.stream().anyMatch(field::isAnnotationPresent)){
+            return false;
+        }
+        int typeArguments = qualifiedType.indexOf('<');
+        String rawType = typeArguments < 0 ? qualifiedType : qualifiedType.substring(0, typeArguments);
+        return !COLLECTION_TYPES.computeIfAbsent(rawType.trim(), CrudMaker::isCollection);
+    }
 
-        //methods
-        writer.println("\t@GetMapping()");
-        writer.println("\tpublic List<"+entity.dtoNname+"> readAll() {");
-        writer.println("\t\treturn "+entity.lowerName+"Service.findAll();");
-        writer.println("\t}\n");
+    private static boolean isTransient(FieldModel field) {
+        return field.hasModifier("transient") || field.isAnnotationPresent("Transient");
+    }
 
-        writer.println("\t@GetMapping(\"/{id}\")");
-        writer.println("\tpublic Optional<"+entity.dtoNname+"> readById(@PathVariable "+entity.idTypeName+" id) {");
-        writer.println("\t\treturn "+entity.lowerName+"Service.findById(id);");
-        writer.println("\t}\n");
+    private static boolean isCollection(String rawType) {
+        try {
+            Class<?> type = Class.forName(rawType, false, CrudMaker.class.getClassLoader());
+            return Iterable.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type);
+        } catch (ClassNotFoundException | LinkageError e) {
+            //a class of the project
+            return false;
+        }
+    }
 
-        writer.println("\t@PostMapping()");
-        writer.println("\tpublic "+entity.dtoNname+" create(@Valid @RequestBody "+entity.dtoNname+" "+entity.lowerName+"ToCreate) {");
-        writer.println("\t\treturn "+entity.lowerName+"Service.save("+entity.lowerName+"ToCreate);");
-        writer.println("\t}\n");
+    /**
+     * Whether the type, as written in the class, is an entity. Entities with the same name in other packages aren't.
+     */
+    private boolean isTypeEntity(ClassModel context, String typeAsString) {
+        return entityTypes.contains(resolver.resolve(context, typeAsString.trim()));
+    }
 
-        writer.println("\t@PutMapping()");
-        writer.println("\tpublic "+entity.dtoNname+" update(@Valid @RequestBody "+entity.dtoNname+" "+entity.lowerName+"ToUpdate) {");
-        writer.println("\t\treturn "+entity.lowerName+"Service.save("+entity.lowerName+"ToUpdate);");
-        writer.println("\t}\n");
 
-        writer.println("\t@DeleteMapping()");
-        writer.println("\tpublic void delete(@RequestBody "+entity.dtoNname+" "+entity.lowerName+"ToDelete) {");
-        writer.println("\t\t"+entity.lowerName+"Service.delete("+entity.lowerName+"ToDelete);");
-        writer.println("\t}\n");
+    String createRepository(EntityInfo entity) {
+        return repositoryTemplate.render(entity.templateValues);
+    }
+    String createService(EntityInfo entity) {
+        return serviceTemplate.render(entity.templateValues);
+    }
 
-        //end class
-        writer.println("}");
+    String createServiceImpl(EntityInfo entity) {
+        return serviceImplTemplate.render(entity.templateValues);
+    }
 
-        return out.toString();
+    String createController(EntityInfo entity) {
+        return controllerTemplate.render(entity.templateValues);
     }
 
 
     static class EntityInfo {
-        public final CompilationUnit compilationUnit;
-        public final ClassOrInterfaceDeclaration classDec;
+        public final ClassModel model;
 
         public final String packageName;
         public final String name;
         private final String lowerName;
         public final String fullyQualifiedName;
 
-        public final VariableDeclarator idVariable;
+        public final FieldModel idVariable;
         public final String idTypeName;
         public final String dtoNname;
         public final String repository;
 
-        public EntityInfo(CompilationUnit compilationUnit) {
+        //the template values of the fields
+        public final List<Map<String, Object>> fields;
+        //the names of the relations fetched with the entity
+        public final List<String> relations;
+        //whether the entity gets a generated mapper
+        public final boolean mapper;
+        //the values used by every template of this entity, on top of the project wide ones
+        public final Map<String, Object> templateValues;
+
+        public EntityInfo(ClassModel model, List<Map<String, Object>> fields, List<String> relations, boolean mapper, Map<String, Object> projectValues) {
             //parsing info from this entity
-            this.compilationUnit = compilationUnit;
-            this.classDec = compilationUnit.getType(0).asClassOrInterfaceDeclaration();
+            this.model = model;
+            this.fields = fields;
+            this.relations = relations;
+            this.mapper = mapper;
 
             //name
-            this.name = classDec.getNameAsString();
+            this.name = model.name;
             this.lowerName = name.toLowerCase().charAt(0) + name.substring(1);
-            this.packageName = compilationUnit.getPackageDeclaration().get().getNameAsString();
+            this.packageName = model.packageName;
             this.fullyQualifiedName = packageName + "." + name;
             this.dtoNname = name + "Dto";
             this.repository = lowerName+"Repository";
 
             //id data
-            this.idVariable = classDec.getFields().stream().filter(
-                    field -> field.isAnnotationPresent("Id")
-            ).findFirst().get().getVariable(0);
-            this.idTypeName = idVariable.getTypeAsString();
+            this.idVariable = model.getIdField().get();
+            this.idTypeName = idVariable.type;
+
+            this.templateValues = templateValues(projectValues);
+        }
 
+        private Map<String, Object> templateValues(Map<String, Object> projectValues) {
+            Map<String, Object> values = new HashMap<>(projectValues);
+            values.put("name", name);
+            values.put("lowerName", lowerName);
+            values.put("kebabName", Utils.toKebabCase(name));
+            values.put("fullyQualifiedName", fullyQualifiedName);
+            values.put("dtoName", dtoNname);
+            values.put("idType", idTypeName);
+            values.put("idName", idVariable.name);
+            values.put("capitalizedIdName", Character.toUpperCase(idVariable.name.charAt(0)) + idVariable.name.substring(1));
+            values.put("repository", repository);
+            values.put("fields", fields);
+            values.put("relations", relations.stream().map(it -> "\"" + it + "\"").collect(Collectors.joining(", ")));
+            values.put("hasRelations", !relations.isEmpty());
+            values.put("mapper", mapper);
+            return values;
         }
 
     }
@@ -0,0 +1,65 @@
+package dev.cele.cepispring.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Paths;
+
+/**
+ * Runs a command on the daemon instead of in this JVM, printing what the daemon prints.
+ */
+public class DaemonClient {
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+
+    /**
+     * Returns the exit code of the run, or null if no daemon is running.
+     */
+    public static Integer run(String[] args) {
+        DaemonInfo info = DaemonInfo.read();
+        if(info == null){
+            return null;
+        }
+
+        try (Socket socket = new Socket()) {
+            try {
+                socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), info.port), CONNECT_TIMEOUT_MILLIS);
+            } catch (IOException e) {
+                //the daemon died without cleaning up
+                return null;
+            }
+
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeUTF(info.token);
+            out.writeUTF(Paths.get("").toAbsolutePath().toString());
+            out.writeInt(args.length);
+            for (String arg : args) {
+                out.writeUTF(arg);
+            }
+            out.flush();
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            while (true) {
+                byte frame = in.readByte();
+                if(frame == DaemonProtocol.EXIT){
+                    return in.readInt();
+                }
+                byte[] output = new byte[in.readInt()];
+                in.readFully(output);
+                System.out.write(output);
+                System.out.flush();
+            }
+        } catch (EOFException e) {
+            System.out.println("The daemon closed the connection before finishing");
+            return 1;
+        } catch (IOException e) {
+            System.out.println("Lost the connection with the daemon: " + e.getMessage());
+            return 1;
+        }
+    }
+}
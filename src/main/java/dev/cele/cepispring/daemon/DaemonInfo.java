@@ -0,0 +1,74 @@
+package dev.cele.cepispring.daemon;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Properties;
+
+/**
+ * Where the running daemon listens, and the token a client needs to talk to it.
+ * The file is only readable by its owner, so other users of the machine can't use the daemon.
+ */
+class DaemonInfo {
+    static final Path FILE = Paths.get(System.getProperty("user.home"), ".cepi-spring", "daemon.properties");
+
+    final int port;
+    final String token;
+
+    DaemonInfo(int port, String token) {
+        this.port = port;
+        this.token = token;
+    }
+
+    /**
+     * Returns the info of the running daemon, or null if there's none.
+     */
+    static DaemonInfo read() {
+        if(!Files.isRegularFile(FILE)){
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(FILE)) {
+            properties.load(in);
+            return new DaemonInfo(Integer.parseInt(properties.getProperty("port")), properties.getProperty("token"));
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    void write() throws IOException {
+        Files.createDirectories(FILE.getParent());
+        Files.deleteIfExists(FILE);
+        Files.createFile(FILE);
+        try {
+            Files.setPosixFilePermissions(FILE, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            //not a posix file system, the user home is private anyway
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty("port", String.valueOf(port));
+        properties.setProperty("token", token);
+        try (OutputStream out = Files.newOutputStream(FILE)) {
+            properties.store(out, "cepi-spring daemon");
+        }
+    }
+
+    /**
+     * Deletes the file, unless another daemon has replaced it in the meantime.
+     */
+    void delete() {
+        DaemonInfo current = read();
+        if(current != null && current.port == port && current.token.equals(token)){
+            try {
+                Files.deleteIfExists(FILE);
+            } catch (IOException e) {
+                System.out.println("Cannot delete " + FILE);
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package dev.cele.cepispring.daemon;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The client sends the token, its working directory and the command line arguments.
+ * The daemon answers with OUTPUT frames, carrying what the run prints, and ends with an EXIT frame with the exit code.
+ */
+class DaemonProtocol {
+    static final byte OUTPUT = 1;
+    static final byte EXIT = 2;
+
+    /**
+     * Sends everything written to it as OUTPUT frames.
+     */
+    static class FrameOutputStream extends OutputStream {
+        private final DataOutputStream out;
+
+        FrameOutputStream(DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{ (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if(length == 0){
+                return;
+            }
+            out.writeByte(OUTPUT);
+            out.writeInt(length);
+            out.write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package dev.cele.cepispring.daemon;
+
+import dev.cele.cepispring.CLIOptions;
+import dev.cele.cepispring.crud.CrudMaker;
+import dev.cele.cepispring.model.ParseCache;
+import dev.cele.cepispring.output.OutputSink;
+import dev.cele.cepispring.profile.Profiler;
+import dev.cele.cepispring.project.SourceRoots;
+import dev.cele.cepispring.ts.TypescriptMaker;
+import picocli.CommandLine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * A long running process that keeps the parsed classes of every project it generated for, with a warm JIT,
+ * so the following runs only parse the files that changed.
+ * It listens on the loopback interface, serving one client at a time: the makers print on System.out,
+ * which is redirected to the client for the whole request.
+ */
+public class DaemonServer {
+    private static final int IDLE_TIMEOUT_MILLIS = (int) TimeUnit.HOURS.toMillis(3);
+
+    //one cache for every set of source roots
+    private final Map<String, ParseCache> caches = new HashMap<>();
+
+    public void serve() throws IOException {
+        byte[] tokenBytes = new byte[24];
+        new SecureRandom().nextBytes(tokenBytes);
+        StringBuilder token = new StringBuilder();
+        for (byte b : tokenBytes) {
+            token.append(String.format("%02x", b));
+        }
+
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout(IDLE_TIMEOUT_MILLIS);
+            DaemonInfo info = new DaemonInfo(server.getLocalPort(), token.toString());
+            info.write();
+            System.out.println("cepi-spring daemon listening on port " + info.port + ", stop it with --stop-daemon");
+
+            try {
+                boolean running = true;
+                while (running) {
+                    try (Socket client = server.accept()) {
+                        running = handle(client, info.token);
+                    } catch (SocketTimeoutException e) {
+                        System.out.println("No requests for " + TimeUnit.MILLISECONDS.toHours(IDLE_TIMEOUT_MILLIS) + " hours, stopping");
+                        running = false;
+                    } catch (IOException e) {
+                        System.out.println("Lost a client: " + e.getMessage());
+                    }
+                }
+            } finally {
+                info.delete();
+            }
+        }
+    }
+
+    /**
+     * Serves a request, returning false if the client asked the daemon to stop.
+     */
+    private boolean handle(Socket client, String token) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(client.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(client.getOutputStream()));
+
+        //anyone on the machine can connect, only the owner of the info file can ask something
+        if(!MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), in.readUTF().getBytes(StandardCharsets.UTF_8))){
+            System.out.println("Refused a client with a wrong token");
+            return true;
+        }
+        Path workingDirectory = Paths.get(in.readUTF());
+        String[] args = new String[in.readInt()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = in.readUTF();
+        }
+
+        long start = System.nanoTime();
+        PrintStream clientOut = new PrintStream(new DaemonProtocol.FrameOutputStream(out), true, "UTF-8");
+        PrintStream stdout = System.out;
+        PrintStream stderr = System.err;
+        System.setOut(clientOut);
+        System.setErr(clientOut);
+
+        int exitCode;
+        boolean stop = false;
+        try {
+            CLIOptions options = new CLIOptions();
+            new CommandLine(options).setCaseInsensitiveEnumValuesAllowed(true).parseArgs(args);
+            resolvePaths(options, workingDirectory);
+
+            if(options.stopDaemon){
+                System.out.println("Stopping the daemon");
+                stop = true;
+                exitCode = 0;
+            } else {
+                exitCode = generate(options);
+                System.out.println("Done in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms by the daemon");
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Error: " + e.getMessage());
+            exitCode = 1;
+        } finally {
+            Profiler.disable();
+            clientOut.flush();
+            System.setOut(stdout);
+            System.setErr(stderr);
+        }
+
+        out.writeByte(DaemonProtocol.EXIT);
+        out.writeInt(exitCode);
+        out.flush();
+        return !stop;
+    }
+
+    private int generate(CLIOptions options) {
+        if(!options.typescript && !options.crud){
+            new CommandLine(options).usage(System.out);
+            return 1;
+        }
+
+        if(options.directories != null){
+            options.directories = SourceRoots.resolve(options.directories);
+        }
+        if(options.profile || options.profileReport != null){
+            Profiler.enable();
+        }
+
+        ParseCache cache = getCache(options);
+        OutputSink sink = OutputSink.forOptions(options);
+        Runnable maker = options.typescript
+                ? new TypescriptMaker(options, sink, cache)
+                : new CrudMaker(options, sink, cache);
+        maker.run();
+        try (Profiler.Phase phase = Profiler.start("write")) {
+            sink.close();
+        }
+        Profiler.report(System.out, options.profileReport);
+        return 0;
+    }
+
+    private ParseCache getCache(CLIOptions options) {
+        if(options.maxHeapBudget != null){
+            return ParseCache.disabled();
+        }
+        if(options.noCache || options.directories == null){
+            return ParseCache.inMemory();
+        }
+
+        //the cache on disk is read only the first time, then the daemon keeps it up to date
+        String key = options.cacheDirectory + "\n" + options.directories.stream().map(Path::toString).sorted().collect(Collectors.joining("\n"));
+        return caches.computeIfAbsent(key, it -> ParseCache.forOptions(options));
+    }
+
+    /**
+     * Relative paths are relative to the client working directory, not the daemon one.
+     */
+    private static void resolvePaths(CLIOptions options, Path workingDirectory) {
+        if(options.directories != null){
+            options.directories = options.directories.stream().map(workingDirectory::resolve).collect(Collectors.toList());
+        }
+        if(options.output != null){
+            options.output = workingDirectory.resolve(options.output);
+        }
+        if(options.templates != null){
+            options.templates = workingDirectory.resolve(options.templates);
+        }
+        if(options.cacheDirectory != null){
+            options.cacheDirectory = workingDirectory.resolve(options.cacheDirectory);
+        }
+        if(options.profileReport != null){
+            options.profileReport = workingDirectory.resolve(options.profileReport);
+        }
+    }
+}
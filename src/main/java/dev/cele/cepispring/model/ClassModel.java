@@ -0,0 +1,206 @@
+package dev.cele.cepispring.model;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.EnumDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.AnnotationExpr;
+import com.github.javaparser.ast.nodeTypes.NodeWithAnnotations;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * The parts of a parsed type declaration the makers actually need.
+ * Unlike a CompilationUnit it's small and can be stored in the parse cache: it's immutable, its lists are trimmed
+ * to size and its strings are interned, since the same packages, annotations and types repeat in every file.
+ */
+public final class ClassModel {
+    public enum Kind { CLASS, INTERFACE, ENUM, OTHER }
+
+    public final String packageName;
+    //the imports of the file declaring the type, "a.b.*" for on demand imports, without the static ones
+    public final List<String> imports;
+    public final String name;
+    public final Kind kind;
+    public final List<String> annotations;
+    public final List<String> extendedTypes;
+    public final List<String> implementedTypes;
+    public final List<FieldModel> fields;
+
+    public ClassModel(String packageName, List<String> imports, String name, Kind kind, List<String> annotations,
+                      List<String> extendedTypes, List<String> implementedTypes, List<FieldModel> fields) {
+        this.packageName = packageName.intern();
+        this.imports = compactStrings(imports);
+        this.name = name.intern();
+        this.kind = kind;
+        this.annotations = compactStrings(annotations);
+        this.extendedTypes = compactStrings(extendedTypes);
+        this.implementedTypes = compactStrings(implementedTypes);
+        this.fields = compact(fields);
+    }
+
+    public String getFullyQualifiedName() {
+        return packageName.isEmpty() ? name : packageName + "." + name;
+    }
+
+    public boolean isAnnotationPresent(String annotationName) {
+        return annotations.contains(annotationName);
+    }
+
+    public boolean isClass() {
+        return kind == Kind.CLASS;
+    }
+
+    public boolean isInterface() {
+        return kind == Kind.INTERFACE;
+    }
+
+    /**
+     * Whether the type is in a dto package or has a name ending in dto, case insensitive.
+     */
+    public boolean isDto() {
+        return packageName.toLowerCase().contains("dto") || name.toLowerCase().endsWith("dto");
+    }
+
+    public Optional<FieldModel> getIdField() {
+        return fields.stream().filter(field -> field.isAnnotationPresent("Id")).findFirst();
+    }
+
+    //region extraction
+    public static List<ClassModel> extract(CompilationUnit cu) {
+        String packageName = cu.getPackageDeclaration().map(it -> it.getNameAsString()).orElse("");
+        List<String> imports = cu.getImports().stream()
+                .filter(it -> !it.isStatic())
+                .map(it -> it.isAsterisk() ? it.getNameAsString() + ".*" : it.getNameAsString())
+                .collect(Collectors.toList());
+
+        List<ClassModel> models = new ArrayList<>(cu.getTypes().size());
+        for (TypeDeclaration<?> type : cu.getTypes()) {
+            models.add(extract(packageName, imports, type));
+        }
+        return models;
+    }
+
+    private static ClassModel extract(String packageName, List<String> imports, TypeDeclaration<?> type) {
+        Kind kind = Kind.OTHER;
+        List<String> extendedTypes = Collections.emptyList();
+        List<String> implementedTypes = Collections.emptyList();
+
+        if(type.isClassOrInterfaceDeclaration()){
+            ClassOrInterfaceDeclaration coi = type.asClassOrInterfaceDeclaration();
+            kind = coi.isInterface() ? Kind.INTERFACE : Kind.CLASS;
+            extendedTypes = typeNames(coi.getExtendedTypes());
+            implementedTypes = typeNames(coi.getImplementedTypes());
+        } else if(type.isEnumDeclaration()){
+            EnumDeclaration enumDec = type.asEnumDeclaration();
+            kind = Kind.ENUM;
+            implementedTypes = typeNames(enumDec.getImplementedTypes());
+        }
+
+        List<FieldModel> fields = type.getFields().stream().flatMap(field -> {
+            List<String> fieldAnnotations = annotationNames(field);
+            List<String> fieldModifiers = field.getModifiers().stream()
+                    .map(modifier -> modifier.getKeyword().asString())
+                    .collect(Collectors.toList());
+            return field.getVariables().stream().map(variable ->
+                    new FieldModel(variable.getNameAsString(), variable.getType().asString(), fieldAnnotations, fieldModifiers)
+            );
+        }).collect(Collectors.toList());
+
+        return new ClassModel(packageName, imports, type.getNameAsString(), kind, annotationNames(type),
+                extendedTypes, implementedTypes, fields);
+    }
+
+    private static List<String> annotationNames(NodeWithAnnotations<?> node) {
+        //matching JavaParser's isAnnotationPresent, that only looks at the last part of the name
+        return node.getAnnotations().stream()
+                .map(AnnotationExpr::getName)
+                .map(name -> name.getIdentifier())
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> typeNames(List<ClassOrInterfaceType> types) {
+        return types.stream().map(ClassOrInterfaceType::asString).collect(Collectors.toList());
+    }
+    //endregion
+
+    //region compaction
+    static <T> List<T> compact(List<T> list) {
+        switch (list.size()) {
+            case 0:
+                return Collections.emptyList();
+            case 1:
+                return Collections.singletonList(list.get(0));
+            default:
+                return Collections.unmodifiableList(new ArrayList<>(list));
+        }
+    }
+
+    static List<String> compactStrings(List<String> strings) {
+        List<String> interned = new ArrayList<>(strings.size());
+        for (String string : strings) {
+            interned.add(string.intern());
+        }
+        return compact(interned);
+    }
+    //endregion
+
+    //region serialization
+    void write(DataOutput out) throws IOException {
+        out.writeUTF(packageName);
+        writeStrings(out, imports);
+        out.writeUTF(name);
+        out.writeByte(kind.ordinal());
+        writeStrings(out, annotations);
+        writeStrings(out, extendedTypes);
+        writeStrings(out, implementedTypes);
+        out.writeInt(fields.size());
+        for (FieldModel field : fields) {
+            field.write(out);
+        }
+    }
+
+    static ClassModel read(DataInput in) throws IOException {
+        String packageName = in.readUTF();
+        List<String> imports = readStrings(in);
+        String name = in.readUTF();
+        Kind kind = Kind.values()[in.readByte()];
+        List<String> annotations = readStrings(in);
+        List<String> extendedTypes = readStrings(in);
+        List<String> implementedTypes = readStrings(in);
+        int fieldCount = in.readInt();
+        List<FieldModel> fields = new ArrayList<>(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            fields.add(FieldModel.read(in));
+        }
+        return new ClassModel(packageName, imports, name, kind, annotations, extendedTypes, implementedTypes, fields);
+    }
+
+    static void writeStrings(DataOutput out, List<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (String string : strings) {
+            out.writeUTF(string);
+        }
+    }
+
+    static List<String> readStrings(DataInput in) throws IOException {
+        int size = in.readInt();
+        if(size == 0){
+            return Collections.emptyList();
+        }
+        List<String> strings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            strings.add(in.readUTF());
+        }
+        return strings;
+    }
+    //endregion
+}
@@ -0,0 +1,40 @@
+package dev.cele.cepispring.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+public final class FieldModel {
+    public final String name;
+    public final String type;
+    public final List<String> annotations;
+    //like static or transient, as written in the source
+    public final List<String> modifiers;
+
+    public FieldModel(String name, String type, List<String> annotations, List<String> modifiers) {
+        this.name = name.intern();
+        this.type = type.intern();
+        this.annotations = ClassModel.compactStrings(annotations);
+        this.modifiers = ClassModel.compactStrings(modifiers);
+    }
+
+    public boolean isAnnotationPresent(String annotationName) {
+        return annotations.contains(annotationName);
+    }
+
+    public boolean hasModifier(String modifier) {
+        return modifiers.contains(modifier);
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeUTF(name);
+        out.writeUTF(type);
+        ClassModel.writeStrings(out, annotations);
+        ClassModel.writeStrings(out, modifiers);
+    }
+
+    static FieldModel read(DataInput in) throws IOException {
+        return new FieldModel(in.readUTF(), in.readUTF(), ClassModel.readStrings(in), ClassModel.readStrings(in));
+    }
+}
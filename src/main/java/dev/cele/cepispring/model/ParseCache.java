@@ -0,0 +1,276 @@
+package dev.cele.cepispring.model;
+
+import dev.cele.cepispring.CLIOptions;
+import dev.cele.cepispring.profile.Profiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the class models extracted from every source file, so files that didn't change since the last run
+ * don't need to be parsed again. Files rejected by a prefilter are kept too, with the ids of the prefilters
+ * that rejected them, so they aren't read again by the same prefilter while they don't change.
+ * A file is considered unchanged if its size and modification time match, or if its content hash does.
+ */
+public class ParseCache {
+    private static final int FORMAT_VERSION = 4;
+
+    //null when the cache only lives in memory
+    private final Path cacheFile;
+    //false when nothing is kept, not even in memory
+    private final boolean retaining;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean dirty = false;
+
+    private ParseCache(Path cacheFile, boolean retaining) {
+        this.cacheFile = cacheFile;
+        this.retaining = retaining;
+    }
+
+    public static ParseCache inMemory() {
+        return new ParseCache(null, true);
+    }
+
+    /**
+     * A cache that parses every file and keeps nothing, for the runs that can't hold the whole project in memory.
+     */
+    public static ParseCache disabled() {
+        return new ParseCache(null, false);
+    }
+
+    public static ParseCache forOptions(CLIOptions options) {
+        if(options.maxHeapBudget != null){
+            return disabled();
+        }
+        if(options.noCache || options.directories == null || options.directories.isEmpty()){
+            return inMemory();
+        }
+        try (Profiler.Phase phase = Profiler.start("cache")) {
+            return load(options.cacheDirectory, options.directories);
+        }
+    }
+
+    public static ParseCache load(Path cacheDirectory, List<Path> sourceRoots) {
+        //every set of source roots gets its own cache file
+        String roots = sourceRoots.stream().map(root -> root.toAbsolutePath().normalize().toString()).sorted().collect(Collectors.joining("\n"));
+        String rootHash = toHex(sha1(roots.getBytes(StandardCharsets.UTF_8)));
+        ParseCache cache = new ParseCache(cacheDirectory.resolve(rootHash.substring(0, 16) + ".bin"), true);
+
+        if(!Files.isRegularFile(cache.cacheFile)){
+            return cache;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cache.cacheFile)))) {
+            if(in.readInt() != FORMAT_VERSION){
+                return cache;
+            }
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                String path = in.readUTF();
+                cache.entries.put(path, Entry.read(in));
+            }
+            Profiler.countBytesRead(Files.size(cache.cacheFile));
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Ignoring unreadable parse cache " + cache.cacheFile);
+            cache.entries.clear();
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the models of the file, calling parser on the file content only if the cache doesn't have them.
+     * Files whose content is rejected by the prefilter aren't parsed and have no models, the rejection is cached
+     * under the prefilter id.
+     */
+    public List<ClassModel> get(File file, long prefilterId, Predicate<byte[]> prefilter, Function<byte[], List<ClassModel>> parser) throws IOException {
+        if(!retaining){
+            byte[] content = Files.readAllBytes(file.toPath());
+            Profiler.countBytesRead(content.length);
+            return prefilter.test(content) ? parser.apply(content) : Collections.emptyList();
+        }
+
+        String key = file.getAbsolutePath();
+        BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+
+        Entry entry = entries.get(key);
+        if(entry != null && entry.lastModified == lastModified && entry.size == size && entry.answers(prefilterId)){
+            return entry.models;
+        }
+
+        byte[] content = Files.readAllBytes(file.toPath());
+        Profiler.countBytesRead(content.length);
+        byte[] hash = sha1(content);
+        boolean sameContent = entry != null && Arrays.equals(entry.hash, hash);
+
+        //touched but not modified
+        if(sameContent && entry.answers(prefilterId)){
+            entries.put(key, new Entry(lastModified, size, hash, entry.models, entry.rejectedBy));
+            dirty = true;
+            return entry.models;
+        }
+
+        if(!prefilter.test(content)){
+            //the other prefilters that rejected the same content still do
+            long[] rejectedBy = sameContent && entry.isRejected() ? append(entry.rejectedBy, prefilterId) : new long[]{ prefilterId };
+            entries.put(key, new Entry(lastModified, size, hash, Collections.emptyList(), rejectedBy));
+            dirty = true;
+            return Collections.emptyList();
+        }
+
+        List<ClassModel> models = parser.apply(content);
+        entries.put(key, new Entry(lastModified, size, hash, models, NOT_REJECTED));
+        dirty = true;
+        return models;
+    }
+
+    /**
+     * Forgets the files that don't exist anymore.
+     */
+    public void retainAll(Collection<File> files) {
+        Set<String> keys = files.stream().map(File::getAbsolutePath).collect(Collectors.toSet());
+        if(entries.keySet().retainAll(keys)){
+            dirty = true;
+        }
+    }
+
+    public void save() {
+        if(cacheFile == null || !dirty){
+            return;
+        }
+
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            Path tempFile = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                List<Map.Entry<String, Entry>> snapshot = new ArrayList<>(entries.entrySet());
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, Entry> entry : snapshot) {
+                    out.writeUTF(entry.getKey());
+                    entry.getValue().write(out);
+                }
+            }
+            Profiler.countBytesWritten(Files.size(tempFile));
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            System.out.println("Cannot write parse cache " + cacheFile);
+        }
+    }
+
+    private static long[] append(long[] ids, long id) {
+        long[] appended = Arrays.copyOf(ids, ids.length + 1);
+        appended[ids.length] = id;
+        return appended;
+    }
+
+    private static byte[] sha1(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+
+    private static final long[] NOT_REJECTED = new long[0];
+
+    private static class Entry {
+        final long lastModified;
+        final long size;
+        final byte[] hash;
+        final List<ClassModel> models;
+        //the ids of the prefilters that rejected the file, empty if it was parsed
+        final long[] rejectedBy;
+
+        Entry(long lastModified, long size, byte[] hash, List<ClassModel> models, long[] rejectedBy) {
+            this.lastModified = lastModified;
+            this.size = size;
+            this.hash = hash;
+            this.models = models;
+            this.rejectedBy = rejectedBy;
+        }
+
+        boolean isRejected() {
+            return rejectedBy.length > 0;
+        }
+
+        /**
+         * Whether the entry is the answer for this prefilter: the models of a parsed file, or a rejection by it.
+         */
+        boolean answers(long prefilterId) {
+            if(!isRejected()){
+                return true;
+            }
+            for (long id : rejectedBy) {
+                if(id == prefilterId){
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeLong(lastModified);
+            out.writeLong(size);
+            out.writeShort(hash.length);
+            out.write(hash);
+            out.writeInt(models.size());
+            for (ClassModel model : models) {
+                model.write(out);
+            }
+            out.writeShort(rejectedBy.length);
+            for (long id : rejectedBy) {
+                out.writeLong(id);
+            }
+        }
+
+        static Entry read(DataInputStream in) throws IOException {
+            long lastModified = in.readLong();
+            long size = in.readLong();
+            byte[] hash = new byte[in.readShort()];
+            in.readFully(hash);
+            int modelCount = in.readInt();
+            List<ClassModel> models = new ArrayList<>(modelCount);
+            for (int i = 0; i < modelCount; i++) {
+                models.add(ClassModel.read(in));
+            }
+            long[] rejectedBy = new long[in.readShort()];
+            for (int i = 0; i < rejectedBy.length; i++) {
+                rejectedBy[i] = in.readLong();
+            }
+            return new Entry(lastModified, size, hash, models, rejectedBy.length == 0 ? NOT_REJECTED : rejectedBy);
+        }
+    }
+}
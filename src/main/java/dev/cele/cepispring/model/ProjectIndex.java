@@ -0,0 +1,117 @@
+package dev.cele.cepispring.model;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Every type declared in the project, indexed by name and annotation.
+ * It's built in a single pass over the parsed files and all lookups are hash based.
+ */
+public class ProjectIndex {
+    private final Map<File, List<ClassModel>> files = new LinkedHashMap<>();
+    private final Map<String, ClassModel> byFullyQualifiedName = new HashMap<>();
+    private final Map<String, List<ClassModel>> bySimpleName = new HashMap<>();
+    private final Map<String, List<ClassModel>> byAnnotation = new HashMap<>();
+    private final List<ClassModel> dtos = new ArrayList<>();
+    private final List<ClassModel> enums = new ArrayList<>();
+
+    public ProjectIndex(Map<File, List<ClassModel>> parsedFiles) {
+        putAll(parsedFiles);
+    }
+
+    public void putAll(Map<File, List<ClassModel>> parsedFiles) {
+        parsedFiles.forEach(this::put);
+    }
+
+    /**
+     * Adds the types declared in a file, replacing the ones it declared before.
+     */
+    public void put(File file, List<ClassModel> models) {
+        remove(file);
+        files.put(file, models);
+        for (ClassModel model : models) {
+            byFullyQualifiedName.put(model.getFullyQualifiedName(), model);
+            bySimpleName.computeIfAbsent(model.name, it -> new ArrayList<>(1)).add(model);
+
+            //like JavaParser's isAnnotationPresent, only classes and interfaces are indexed by annotation
+            if(model.isClass() || model.isInterface()){
+                for (String annotation : model.annotations) {
+                    byAnnotation.computeIfAbsent(annotation, it -> new ArrayList<>()).add(model);
+                }
+            }
+
+            if(model.isDto()){
+                dtos.add(model);
+            }
+            if(model.kind == ClassModel.Kind.ENUM){
+                enums.add(model);
+            }
+        }
+    }
+
+    public void remove(File file) {
+        List<ClassModel> models = files.remove(file);
+        if(models == null){
+            return;
+        }
+
+        for (ClassModel model : models) {
+            byFullyQualifiedName.remove(model.getFullyQualifiedName(), model);
+            removeFrom(bySimpleName, model.name, model);
+            for (String annotation : model.annotations) {
+                removeFrom(byAnnotation, annotation, model);
+            }
+            dtos.remove(model);
+            enums.remove(model);
+        }
+    }
+
+    private static void removeFrom(Map<String, List<ClassModel>> index, String key, ClassModel model) {
+        List<ClassModel> models = index.get(key);
+        if(models != null && models.remove(model) && models.isEmpty()){
+            index.remove(key);
+        }
+    }
+
+    public Optional<ClassModel> getByFullyQualifiedName(String fullyQualifiedName) {
+        return Optional.ofNullable(byFullyQualifiedName.get(fullyQualifiedName));
+    }
+
+    public List<ClassModel> getBySimpleName(String simpleName) {
+        return bySimpleName.getOrDefault(simpleName, Collections.emptyList());
+    }
+
+    public List<ClassModel> getAnnotatedWith(String annotation) {
+        return byAnnotation.getOrDefault(annotation, Collections.emptyList());
+    }
+
+    public boolean isAnnotatedWith(String simpleName, String annotation) {
+        for (ClassModel model : getBySimpleName(simpleName)) {
+            if((model.isClass() || model.isInterface()) && model.isAnnotationPresent(annotation)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The types in a dto package or with a name ending in dto, case insensitive.
+     */
+    public List<ClassModel> getDtos() {
+        return dtos;
+    }
+
+    public List<ClassModel> getEnums() {
+        return enums;
+    }
+
+    public Map<File, List<ClassModel>> getFiles() {
+        return files;
+    }
+}
@@ -0,0 +1,179 @@
+package dev.cele.cepispring.model;
+
+import dev.cele.cepispring.Utils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * What the makers need to know about the whole project: the names of the entities and enums, which entities
+ * have a repository, and the first package of every kind of spring component.
+ * Unlike a ProjectIndex it keeps no class model, so it's filled one class at a time, in file order,
+ * and takes a few strings per class whatever the size of the project. Types are fully qualified.
+ */
+public class ProjectSymbols {
+    //every type added, so the resolver knows them without the solver
+    private final Set<String> types = ConcurrentHashMap.newKeySet();
+    private final TypeResolver resolver;
+
+    private final Set<String> entityTypes = new LinkedHashSet<>();
+    //the entities used as type argument of a repository
+    private final Set<String> mappedEntityTypes = new HashSet<>();
+    //the types the fields of every entity can relate to another entity through
+    private final Map<String, List<String>> entityFieldTypes = new HashMap<>();
+    //the interfaces implemented by the services, and the package of the first one found for every name
+    private final Set<String> serviceInterfaceNames = new LinkedHashSet<>();
+    private final Map<String, String> serviceInterfacePackages = new HashMap<>();
+    private final Set<String> enumTypes = new HashSet<>();
+
+    private String entityPackage;
+    private String repositoryPackage;
+    private String serviceImplPackage;
+    private String controllerPackage;
+    private String dtoPackage;
+
+    public ProjectSymbols(List<Path> sourceRoots) {
+        this.resolver = new TypeResolver(sourceRoots, types::contains);
+    }
+
+    public void addAll(List<ClassModel> models) {
+        models.forEach(this::add);
+    }
+
+    public void add(ClassModel model) {
+        types.add(model.getFullyQualifiedName());
+
+        //like the ProjectIndex, only classes and interfaces are grouped by annotation
+        if(model.isClass() || model.isInterface()){
+            if(model.isAnnotationPresent("Entity")){
+                entityTypes.add(model.getFullyQualifiedName());
+                entityFieldTypes.put(model.getFullyQualifiedName(), getFieldTypes(resolver, model));
+                entityPackage = firstNonNull(entityPackage, model.packageName);
+            }
+            if(model.isAnnotationPresent("Repository")){
+                mappedEntityTypes.add(resolver.resolve(model, Utils.getTypeArguments(model.extendedTypes.get(0)).get(0)));
+                repositoryPackage = firstNonNull(repositoryPackage, model.packageName);
+            }
+            if(model.isAnnotationPresent("Service") && model.isClass()){
+                model.implementedTypes.stream().map(Utils::getSimpleName).forEach(serviceInterfaceNames::add);
+                serviceImplPackage = firstNonNull(serviceImplPackage, model.packageName);
+            }
+            if(model.isAnnotationPresent("RestController")){
+                controllerPackage = firstNonNull(controllerPackage, model.packageName);
+            }
+        }
+
+        if(model.isInterface() && serviceInterfaceNames.contains(model.name)){
+            serviceInterfacePackages.putIfAbsent(model.name, model.packageName);
+        }
+
+        if(model.kind == ClassModel.Kind.ENUM){
+            enumTypes.add(model.getFullyQualifiedName());
+        }
+
+        if(model.isDto()){
+            dtoPackage = firstNonNull(dtoPackage, model.packageName);
+        }
+    }
+
+    private static String firstNonNull(String current, String candidate) {
+        return current != null ? current : candidate;
+    }
+
+    /**
+     * Resolves types against the classes added so far and the source roots.
+     */
+    public TypeResolver getResolver() {
+        return resolver;
+    }
+
+    public Set<String> getEntityTypes() {
+        return Collections.unmodifiableSet(entityTypes);
+    }
+
+    /**
+     * The entities without a repository, in the order they were found.
+     */
+    public Set<String> getUnmappedEntityTypes() {
+        return entityTypes.stream()
+                .filter(type -> !mappedEntityTypes.contains(type))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * The entities the fields of the entity relate to, alone or in a List.
+     */
+    public Set<String> getRelatedEntityTypes(String entityType) {
+        return entityFieldTypes.getOrDefault(entityType, Collections.emptyList()).stream()
+                .filter(entityTypes::contains)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * The types of the fields of the class, and the element types of its List fields, fully qualified.
+     */
+    public static List<String> getFieldTypes(TypeResolver resolver, ClassModel model) {
+        List<String> types = new ArrayList<>();
+        for (FieldModel field : model.fields) {
+            types.add(resolver.resolve(model, field.type.trim()));
+            if(field.type.contains("List") && field.type.indexOf('<') >= 0 && field.type.indexOf('>') > field.type.indexOf('<')){
+                types.add(resolver.resolve(model, field.type.substring(field.type.indexOf('<') + 1, field.type.indexOf('>')).trim()));
+            }
+        }
+        return types;
+    }
+
+    public Set<String> getEnumTypes() {
+        return Collections.unmodifiableSet(enumTypes);
+    }
+
+    public Set<String> getServiceInterfaceNames() {
+        return Collections.unmodifiableSet(serviceInterfaceNames);
+    }
+
+    public boolean hasDtos() {
+        return dtoPackage != null;
+    }
+
+    //region packages
+    public Optional<String> getEntityPackage() {
+        return Optional.ofNullable(entityPackage);
+    }
+
+    public Optional<String> getRepositoryPackage() {
+        return Optional.ofNullable(repositoryPackage);
+    }
+
+    /**
+     * The package of the first service interface, in the order the services implement them.
+     */
+    public Optional<String> getServicePackage() {
+        return serviceInterfaceNames.stream()
+                .map(serviceInterfacePackages::get)
+                .filter(it -> it != null)
+                .findFirst();
+    }
+
+    public Optional<String> getServiceImplPackage() {
+        return Optional.ofNullable(serviceImplPackage);
+    }
+
+    public Optional<String> getControllerPackage() {
+        return Optional.ofNullable(controllerPackage);
+    }
+
+    public Optional<String> getDtoPackage() {
+        return Optional.ofNullable(dtoPackage);
+    }
+    //endregion
+}
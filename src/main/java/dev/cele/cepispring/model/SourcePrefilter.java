@@ -0,0 +1,194 @@
+package dev.cele.cepispring.model;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Cheap check done on the path and the raw bytes of a source file to decide if it's worth a full parse.
+ * It can give false positives (an annotation inside a comment), never false negatives.
+ */
+public class SourcePrefilter {
+    public static final SourcePrefilter ALL = new SourcePrefilter(null, Collections.emptyList(), Collections.emptySet(), false);
+    private static final byte[] ENUM = "enum".getBytes(StandardCharsets.US_ASCII);
+
+    //null means every file is accepted
+    private final byte[][] annotations;
+    private final List<String> packageOrClassTokens;
+    private final Set<String> classNames;
+    private final boolean enums;
+    //the same for the prefilters configured the same way, the parse cache remembers which ones rejected a file
+    private final long id;
+
+    private SourcePrefilter(byte[][] annotations, List<String> packageOrClassTokens, Set<String> classNames, boolean enums) {
+        this.annotations = annotations;
+        this.packageOrClassTokens = packageOrClassTokens;
+        this.classNames = classNames;
+        this.enums = enums;
+        this.id = computeId();
+    }
+
+    private long computeId() {
+        StringBuilder configuration = new StringBuilder();
+        if(annotations != null){
+            Set<String> sortedAnnotations = new TreeSet<>();
+            for (byte[] annotation : annotations) {
+                sortedAnnotations.add(new String(annotation, StandardCharsets.US_ASCII));
+            }
+            configuration.append(sortedAnnotations);
+        }
+        configuration.append('|').append(new TreeSet<>(packageOrClassTokens))
+                .append('|').append(new TreeSet<>(classNames))
+                .append('|').append(enums);
+
+        //64 bit FNV-1a
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < configuration.length(); i++) {
+            hash ^= configuration.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Accepts the files that use at least one of the annotations, matched by simple name.
+     */
+    public static SourcePrefilter forAnnotations(String... annotationNames) {
+        byte[][] annotations = Arrays.stream(annotationNames)
+                .map(it -> it.getBytes(StandardCharsets.US_ASCII))
+                .toArray(byte[][]::new);
+        return new SourcePrefilter(annotations, Collections.emptyList(), Collections.emptySet(), false);
+    }
+
+    /**
+     * Accepts the files named like one of the classes, without looking at their content.
+     */
+    public static SourcePrefilter forClassNames(Collection<String> classNames) {
+        return new SourcePrefilter(new byte[0][], Collections.emptyList(), new HashSet<>(classNames), false);
+    }
+
+    /**
+     * Also accepts the files whose package contains the token or whose class name ends with it,
+     * like Utils.filterByPackageOrClassContains does.
+     */
+    public SourcePrefilter orPackageOrClassContains(String token) {
+        List<String> tokens = new ArrayList<>(packageOrClassTokens);
+        tokens.add(token.toLowerCase());
+        return new SourcePrefilter(annotations, tokens, classNames, enums);
+    }
+
+    /**
+     * Also accepts the files with the enum keyword.
+     */
+    public SourcePrefilter orDeclaresEnums() {
+        return new SourcePrefilter(annotations, packageOrClassTokens, classNames, true);
+    }
+
+    public boolean acceptsAll() {
+        return annotations == null;
+    }
+
+    public boolean matchesPath(Path relativePath) {
+        if(acceptsAll()){
+            return true;
+        }
+
+        String fileName = relativePath.getFileName().toString();
+        String className = fileName.substring(0, fileName.length() - ".java".length());
+        if(classNames.contains(className)){
+            return true;
+        }
+
+        String packagePath = relativePath.getParent() != null ? relativePath.getParent().toString().toLowerCase() : "";
+        String lowerClassName = className.toLowerCase();
+        for (String token : packageOrClassTokens) {
+            if(packagePath.contains(token) || lowerClassName.endsWith(token)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean scansContent() {
+        return acceptsAll() || annotations.length > 0 || enums;
+    }
+
+    public boolean matchesContent(byte[] content) {
+        if(acceptsAll()){
+            return true;
+        }
+
+        for (int i = 0; i < content.length; i++) {
+            if(enums && content[i] == 'e' && isKeyword(content, i, ENUM)){
+                return true;
+            }
+            if(content[i] != '@'){
+                continue;
+            }
+
+            //reading the (possibly qualified) annotation name, keeping only the last segment
+            int j = i + 1;
+            while (j < content.length && Character.isWhitespace(content[j])) {
+                j++;
+            }
+            int segmentStart = j;
+            while (j < content.length && (isIdentifierPart(content[j]) || content[j] == '.')) {
+                if(content[j] == '.'){
+                    segmentStart = j + 1;
+                }
+                j++;
+            }
+
+            if(j > segmentStart && isAnnotation(content, segmentStart, j)){
+                return true;
+            }
+            i = j - 1;
+        }
+        return false;
+    }
+
+    private boolean isAnnotation(byte[] content, int start, int end) {
+        for (byte[] annotation : annotations) {
+            if(annotation.length != end - start){
+                continue;
+            }
+            boolean equal = true;
+            for (int k = 0; k < annotation.length && equal; k++) {
+                equal = annotation[k] == content[start + k];
+            }
+            if(equal){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isKeyword(byte[] content, int start, byte[] keyword) {
+        int end = start + keyword.length;
+        if(end > content.length || (start > 0 && isIdentifierPart(content[start - 1])) || (end < content.length && isIdentifierPart(content[end]))){
+            return false;
+        }
+        for (int k = 0; k < keyword.length; k++) {
+            if(content[start + k] != keyword[k]){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isIdentifierPart(byte b) {
+        //non ascii bytes are part of unicode identifiers
+        return b < 0 || b == '_' || b == '$' || (b >= '0' && b <= '9') || (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+    }
+}
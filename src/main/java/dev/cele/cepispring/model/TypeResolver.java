@@ -0,0 +1,257 @@
+package dev.cele.cepispring.model;
+
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the fully qualified names of the types used in a class, with the rules of the compiler:
+ * single type imports first, then the types of the same package, the on demand imports and java.lang.
+ * Whether a candidate type exists is asked to the classes already parsed, then to a CombinedTypeSolver
+ * over the source roots and to the JRE; every answer is memoized, as every resolution, so each distinct
+ * type costs a lookup only once, whatever the number of classes using it. It can be used by several threads,
+ * only the source solvers are used by one at a time. When files change, invalidate forgets what they declared.
+ */
+public class TypeResolver {
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_$][A-Za-z0-9_$]*");
+    private static final Pattern QUALIFIED_NAME = Pattern.compile("[A-Za-z_$][A-Za-z0-9_$]*(\\.[A-Za-z_$][A-Za-z0-9_$]*)*");
+    private static final Set<String> NOT_TYPES = new HashSet<>(Arrays.asList(
+            "boolean", "byte", "char", "short", "int", "long", "float", "double", "void", "extends", "super"));
+    //the source files parsed by the solver while looking for types the classes already parsed don't have
+    private static final long SOLVER_CACHE_SIZE = 256;
+
+    //the types parsed by the makers, answered without the solver
+    private final Predicate<String> knownTypes;
+    private final List<Path> sourceRoots = new ArrayList<>();
+    //null when there are no source roots
+    private final TypeSolver sourceSolver;
+    //looks up classes by reflection, it keeps no state
+    private final TypeSolver jreSolver = new ReflectionTypeSolver();
+
+    private final Map<String, Boolean> existingTypes = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> sourceTypes = new ConcurrentHashMap<>();
+    private final Map<Scope, String> resolvedTypes = new ConcurrentHashMap<>();
+    private final Map<Scope, String> qualifiedTypes = new ConcurrentHashMap<>();
+
+    public TypeResolver(List<Path> sourceRoots, Predicate<String> knownTypes) {
+        this.knownTypes = knownTypes;
+
+        List<TypeSolver> sourceSolvers = new ArrayList<>();
+        if(sourceRoots != null){
+            ParserConfiguration configuration = new ParserConfiguration().setStoreTokens(false).setAttributeComments(false);
+            for (Path root : sourceRoots) {
+                if(!Files.isDirectory(root)){
+                    continue;
+                }
+                this.sourceRoots.add(root);
+                sourceSolvers.add(new JavaParserTypeSolver(root, configuration, SOLVER_CACHE_SIZE));
+            }
+        }
+        this.sourceSolver = sourceSolvers.isEmpty() ? null : new CombinedTypeSolver(sourceSolvers);
+    }
+
+    /**
+     * Forgets what was found about the types, and every resolution of a name they could answer,
+     * for the types declared in changed files, before and after the change.
+     */
+    public void invalidate(Collection<String> qualifiedNames) {
+        if(qualifiedNames.isEmpty()){
+            return;
+        }
+        Set<String> simpleNames = new HashSet<>();
+        for (String qualifiedName : qualifiedNames) {
+            simpleNames.add(qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1));
+        }
+
+        existingTypes.keySet().removeAll(qualifiedNames);
+        sourceTypes.keySet().removeAll(qualifiedNames);
+        resolvedTypes.keySet().removeIf(scope -> mentions(scope.name, simpleNames));
+        qualifiedTypes.keySet().removeIf(scope -> mentions(scope.name, simpleNames));
+    }
+
+    private static boolean mentions(String type, Set<String> simpleNames) {
+        Matcher matcher = IDENTIFIER.matcher(type);
+        while (matcher.find()) {
+            if(simpleNames.contains(matcher.group())){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The fully qualified name of a type used in the class, or the name itself if it can't be found.
+     */
+    public String resolve(ClassModel context, String name) {
+        if(NOT_TYPES.contains(name)){
+            return name;
+        }
+        Scope scope = new Scope(context.packageName, context.imports, name);
+        String resolved = resolvedTypes.get(scope);
+        if(resolved == null){
+            resolved = find(context.packageName, context.imports, name);
+            resolvedTypes.put(scope, resolved);
+        }
+        return resolved;
+    }
+
+    /**
+     * The type with every name in it resolved, "List&lt;OrderDto&gt;" becomes "java.util.List&lt;com.shop.dto.OrderDto&gt;".
+     */
+    public String qualify(ClassModel context, String type) {
+        Scope scope = new Scope(context.packageName, context.imports, type);
+        String qualified = qualifiedTypes.get(scope);
+        if(qualified == null){
+            Matcher matcher = QUALIFIED_NAME.matcher(type);
+            StringBuffer buffer = new StringBuffer(type.length() * 2);
+            while (matcher.find()) {
+                matcher.appendReplacement(buffer, Matcher.quoteReplacement(resolve(context, matcher.group())));
+            }
+            matcher.appendTail(buffer);
+            qualified = buffer.toString();
+            qualifiedTypes.put(scope, qualified);
+        }
+        return qualified;
+    }
+
+    /**
+     * Whether the type is declared in the sources of the project, and not by the JRE or a library.
+     */
+    public boolean isSourceType(String qualifiedName) {
+        if(knownTypes.test(qualifiedName)){
+            return true;
+        }
+        if(sourceSolver == null || qualifiedName.indexOf('.') < 0){
+            return false;
+        }
+        Boolean found = sourceTypes.get(qualifiedName);
+        if(found == null){
+            found = hasSourceFile(qualifiedName) && hasSourceType(qualifiedName);
+            sourceTypes.put(qualifiedName, found);
+        }
+        return found;
+    }
+
+    private String find(String packageName, List<String> imports, String name) {
+        //a qualified name is left as is, a nested type like Map.Entry resolves through its outer type
+        int firstDot = name.indexOf('.');
+        if(firstDot >= 0){
+            String outer = name.substring(0, firstDot);
+            return Character.isUpperCase(outer.charAt(0)) ? find(packageName, imports, outer) + name.substring(firstDot) : name;
+        }
+
+        for (String imported : imports) {
+            if(imported.endsWith("." + name)){
+                return imported;
+            }
+        }
+
+        String samePackage = packageName.isEmpty() ? name : packageName + "." + name;
+        if(exists(samePackage)){
+            return samePackage;
+        }
+
+        for (String imported : imports) {
+            if(imported.endsWith(".*")){
+                String candidate = imported.substring(0, imported.length() - 1) + name;
+                if(exists(candidate)){
+                    return candidate;
+                }
+            }
+        }
+
+        String javaLang = "java.lang." + name;
+        if(exists(javaLang)){
+            return javaLang;
+        }
+        return name;
+    }
+
+    private boolean exists(String qualifiedName) {
+        if(knownTypes.test(qualifiedName)){
+            return true;
+        }
+        Boolean found = existingTypes.get(qualifiedName);
+        if(found == null){
+            found = (sourceSolver != null && hasSourceFile(qualifiedName) && hasSourceType(qualifiedName)) || hasType(jreSolver, qualifiedName);
+            existingTypes.put(qualifiedName, found);
+        }
+        return found;
+    }
+
+    /**
+     * Whether a source root has the file of a top level type. When it's missing JavaParserTypeSolver parses
+     * every file of the package looking for a nested type, and names like String are looked for in every package,
+     * so the source solvers are only asked about types with a file; nested types are resolved through their outer type.
+     */
+    private boolean hasSourceFile(String qualifiedName) {
+        String file = qualifiedName.replace('.', '/') + ".java";
+        for (Path root : sourceRoots) {
+            if(Files.isRegularFile(root.resolve(file))){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasSourceType(String qualifiedName) {
+        //the source solvers parse with a single JavaParser each, they can't be used by several threads at once
+        synchronized (sourceSolver) {
+            return hasType(sourceSolver, qualifiedName);
+        }
+    }
+
+    private static boolean hasType(TypeSolver typeSolver, String qualifiedName) {
+        try {
+            return typeSolver.hasType(qualifiedName);
+        } catch (RuntimeException e) {
+            //a source file that doesn't parse
+            return false;
+        }
+    }
+
+    private static class Scope {
+        final String packageName;
+        final List<String> imports;
+        final String name;
+        final int hash;
+
+        Scope(String packageName, List<String> imports, String name) {
+            this.packageName = packageName;
+            this.imports = imports;
+            this.name = name;
+            this.hash = Objects.hash(packageName, imports, name);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof Scope)){
+                return false;
+            }
+            Scope other = (Scope) o;
+            return hash == other.hash && name.equals(other.name) && packageName.equals(other.packageName) && imports.equals(other.imports);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package dev.cele.cepispring.output;
+
+import dev.cele.cepispring.profile.Profiler;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams every generated file into a single zip archive, as soon as it's generated.
+ */
+public class ArchiveSink implements OutputSink {
+    //a fixed entry time (the zip epoch, 1980-01-01) keeps archives of the same output identical
+    private static final long ENTRY_TIME = 315532800000L;
+
+    private final ZipOutputStream zip;
+    private final String name;
+    private int archived = 0;
+
+    public ArchiveSink(OutputStream out, String name) {
+        this.zip = new ZipOutputStream(new BufferedOutputStream(out, 1 << 16));
+        this.name = name;
+    }
+
+    @Override
+    public synchronized void write(String path, String content) {
+        ZipEntry entry = new ZipEntry(path);
+        entry.setTime(ENTRY_TIME);
+        try {
+            zip.putNextEntry(entry);
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            zip.write(bytes);
+            Profiler.countBytesWritten(bytes.length);
+            zip.closeEntry();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write " + path + " to " + name, e);
+        }
+        archived++;
+    }
+
+    @Override
+    public synchronized void flush() {
+        try {
+            zip.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write " + name, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            zip.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write " + name, e);
+        }
+        System.out.println("Archived " + archived + " files to " + name);
+    }
+}
@@ -0,0 +1,29 @@
+package dev.cele.cepispring.output;
+
+/**
+ * Prints the generated files, or only how many there are when not verbose.
+ */
+public class ConsoleSink implements OutputSink {
+    private final boolean verbose;
+    private int generated = 0;
+
+    public ConsoleSink(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    @Override
+    public synchronized void write(String path, String content) {
+        generated++;
+        if(verbose){
+            System.out.println("\n\n" + path);
+            System.out.println("==============================================================");
+            System.out.println(content);
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        System.out.println("Generated " + generated + " files");
+        generated = 0;
+    }
+}
@@ -0,0 +1,107 @@
+package dev.cele.cepispring.output;
+
+import dev.cele.cepispring.Utils;
+import dev.cele.cepispring.profile.Profiler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects the generated files and writes them under a directory when flushed.
+ * Files whose content is already on disk are left untouched, so their modification time doesn't change
+ * and the builds watching them don't recompile; the others are replaced atomically.
+ */
+public class DirectorySink implements OutputSink {
+    private final Path root;
+    private final int threads;
+    private final Map<Path, byte[]> pending = new TreeMap<>();
+
+    private enum Result { WRITTEN, UNCHANGED, FAILED }
+
+    public DirectorySink(Path root, int threads) {
+        this.root = root;
+        this.threads = threads;
+    }
+
+    @Override
+    public synchronized void write(String path, String content) {
+        pending.put(root.resolve(path), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes the pending files, several at a time, and prints which ones changed in path order.
+     */
+    @Override
+    public synchronized void flush() {
+        List<Map.Entry<Path, byte[]>> files = new ArrayList<>(pending.entrySet());
+        pending.clear();
+
+        List<Result> results = Utils.mapConcurrently(files, threads, entry -> {
+            try {
+                if(isUnchanged(entry.getKey(), entry.getValue())){
+                    return Result.UNCHANGED;
+                }
+                writeAtomically(entry.getKey(), entry.getValue());
+                Profiler.countBytesWritten(entry.getValue().length);
+                return Result.WRITTEN;
+            } catch (IOException e) {
+                return Result.FAILED;
+            }
+        });
+
+        int written = 0;
+        int skipped = 0;
+        int failed = 0;
+        for (int i = 0; i < files.size(); i++) {
+            Path path = files.get(i).getKey();
+            switch (results.get(i)) {
+                case WRITTEN:
+                    System.out.println("Writing to " + path);
+                    written++;
+                    break;
+                case UNCHANGED:
+                    skipped++;
+                    break;
+                default:
+                    System.out.println("There was an error writing the file: " + path);
+                    failed++;
+            }
+        }
+        Profiler.countFiles(written);
+
+        System.out.println("Written " + written + " files, " + skipped + " unchanged" + (failed > 0 ? ", " + failed + " failed" : ""));
+    }
+
+    private static boolean isUnchanged(Path path, byte[] content) throws IOException {
+        //checking the size first avoids reading files that obviously changed
+        return Files.isRegularFile(path)
+                && Files.size(path) == content.length
+                && Arrays.equals(Files.readAllBytes(path), content);
+    }
+
+    private static void writeAtomically(Path path, byte[] content) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+
+        Path tempFile = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tempFile, content);
+            try {
+                Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package dev.cele.cepispring.output;
+
+import dev.cele.cepispring.CLIOptions;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+
+/**
+ * Where the generated files go. Paths are relative to the output root, with / as separator.
+ */
+public interface OutputSink {
+    enum Type { CONSOLE, QUIET, DIRECTORY, ARCHIVE }
+
+    void write(String path, String content);
+
+    /**
+     * Called at the end of every generation, a run or a watch update.
+     */
+    void flush();
+
+    /**
+     * Called once, when nothing else will be generated.
+     */
+    default void close() {
+    }
+
+    static OutputSink forOptions(CLIOptions options) {
+        Type type = options.sink;
+        if(type == null){
+            type = options.output != null ? Type.DIRECTORY : Type.CONSOLE;
+        }
+
+        if((type == Type.DIRECTORY || type == Type.ARCHIVE) && options.output == null){
+            throw new RuntimeException("The " + type.name().toLowerCase() + " output needs an output path (-o)");
+        }
+
+        switch (type) {
+            case QUIET:
+                return new ConsoleSink(false);
+            case DIRECTORY:
+                return new DirectorySink(options.output, options.threads);
+            case ARCHIVE:
+                if(options.output.toString().equals("-")){
+                    //the archive takes stdout over, so the messages must go somewhere else
+                    PrintStream stdout = System.out;
+                    System.setOut(System.err);
+                    return new ArchiveSink(stdout, "stdout");
+                }
+                try {
+                    OutputStream out = Files.newOutputStream(options.output);
+                    return new ArchiveSink(out, options.output.toString());
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot create " + options.output, e);
+                }
+            default:
+                return new ConsoleSink(true);
+        }
+    }
+}
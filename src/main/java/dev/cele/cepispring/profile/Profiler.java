@@ -0,0 +1,280 @@
+package dev.cele.cepispring.profile;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the phases of a run: discovering the files, parsing them, classifying the classes, generating and writing.
+ * <p>
+ * Phases are opened with {@link #start(String)} in a try-with-resources, one at a time; a phase started more than once,
+ * like the two parse passes of the crud maker, adds up. The counters are attributed to the open phase and can be called
+ * from any thread. Everything is a no-op until {@link #enable()} is called.
+ */
+public class Profiler {
+    private static final Phase NO_PHASE = new Phase(null, null);
+
+    private static volatile Profiler profiler;
+
+    private final long startNanos = System.nanoTime();
+    private final long startCpuNanos = processCpuNanos();
+    private final long startGcCount = gcCount();
+    private final long startGcMillis = gcMillis();
+    private final Map<String, Stats> phases = new LinkedHashMap<>();
+    private volatile Stats current;
+
+    private Profiler() {
+    }
+
+    public static void enable() {
+        profiler = new Profiler();
+    }
+
+    public static void disable() {
+        profiler = null;
+    }
+
+    public static Phase start(String name) {
+        Profiler active = profiler;
+        if(active == null){
+            return NO_PHASE;
+        }
+
+        Stats stats;
+        synchronized (active.phases) {
+            stats = active.phases.computeIfAbsent(name, Stats::new);
+        }
+        Phase phase = new Phase(active, stats);
+        active.current = stats;
+        return phase;
+    }
+
+    //region counters
+    public static void countFiles(long files) {
+        Stats stats = currentStats();
+        if(stats != null){
+            stats.files.add(files);
+        }
+    }
+
+    public static void countBytesRead(long bytes) {
+        Stats stats = currentStats();
+        if(stats != null){
+            stats.bytesRead.add(bytes);
+        }
+    }
+
+    public static void countBytesWritten(long bytes) {
+        Stats stats = currentStats();
+        if(stats != null){
+            stats.bytesWritten.add(bytes);
+        }
+    }
+
+    private static Stats currentStats() {
+        Profiler active = profiler;
+        return active == null ? null : active.current;
+    }
+    //endregion
+
+    /**
+     * Prints the report of everything measured since enable, and writes it as JSON if reportFile isn't null.
+     */
+    public static void report(PrintStream out, Path reportFile) {
+        Profiler active = profiler;
+        if(active == null){
+            return;
+        }
+
+        Stats total = active.total();
+        out.println();
+        out.println(String.format("%-10s %10s %10s %8s %10s %12s %12s %5s %8s %10s",
+                "phase", "wall ms", "cpu ms", "files", "files/s", "read KB", "written KB", "gcs", "gc ms", "heap MB"));
+        for (Stats stats : active.phases.values()) {
+            out.println(stats.toRow());
+        }
+        out.println(total.toRow());
+
+        if(reportFile != null){
+            JSONArray phases = new JSONArray();
+            active.phases.values().forEach(stats -> phases.put(stats.toJson()));
+
+            JSONObject report = new JSONObject();
+            report.put("phases", phases);
+            report.put("total", total.toJson());
+            try {
+                Files.write(reportFile, report.toString(2).getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write the profile report " + reportFile, e);
+            }
+            out.println("Profile report written to " + reportFile);
+        }
+    }
+
+    private Stats total() {
+        Stats total = new Stats("total");
+        total.wallNanos = System.nanoTime() - startNanos;
+        long cpuNanos = processCpuNanos();
+        total.cpuNanos = cpuNanos < 0 ? -1 : cpuNanos - startCpuNanos;
+        total.gcCount = gcCount() - startGcCount;
+        total.gcMillis = gcMillis() - startGcMillis;
+        //files aren't added up, the phases count different things
+        total.countsFiles = false;
+        for (Stats stats : phases.values()) {
+            total.bytesRead.add(stats.bytesRead.sum());
+            total.bytesWritten.add(stats.bytesWritten.sum());
+            total.peakHeapBytes = Math.max(total.peakHeapBytes, stats.peakHeapBytes);
+        }
+        return total;
+    }
+
+    /**
+     * An open phase, closing it adds its measures to the phase totals.
+     */
+    public static class Phase implements AutoCloseable {
+        private final Profiler profiler;
+        private final Stats stats;
+        private final Stats previous;
+        private final long startNanos;
+        private final long startCpuNanos;
+        private final long startGcCount;
+        private final long startGcMillis;
+
+        private Phase(Profiler profiler, Stats stats) {
+            this.profiler = profiler;
+            this.stats = stats;
+            if(profiler == null){
+                previous = null;
+                startNanos = startCpuNanos = startGcCount = startGcMillis = 0;
+                return;
+            }
+
+            previous = profiler.current;
+            ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+            startGcCount = gcCount();
+            startGcMillis = gcMillis();
+            startCpuNanos = processCpuNanos();
+            startNanos = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            if(profiler == null){
+                return;
+            }
+
+            long cpuNanos = processCpuNanos();
+            synchronized (stats) {
+                stats.wallNanos += System.nanoTime() - startNanos;
+                stats.cpuNanos = cpuNanos < 0 ? -1 : stats.cpuNanos + cpuNanos - startCpuNanos;
+                stats.gcCount += gcCount() - startGcCount;
+                stats.gcMillis += gcMillis() - startGcMillis;
+                stats.peakHeapBytes = Math.max(stats.peakHeapBytes, peakHeapBytes());
+            }
+            profiler.current = previous;
+        }
+    }
+
+    private static class Stats {
+        final String name;
+        final LongAdder files = new LongAdder();
+        final LongAdder bytesRead = new LongAdder();
+        final LongAdder bytesWritten = new LongAdder();
+        long wallNanos;
+        long cpuNanos;
+        long gcCount;
+        long gcMillis;
+        long peakHeapBytes;
+        boolean countsFiles = true;
+
+        Stats(String name) {
+            this.name = name;
+        }
+
+        long filesPerSecond() {
+            return wallNanos == 0 ? 0 : files.sum() * TimeUnit.SECONDS.toNanos(1) / wallNanos;
+        }
+
+        String toRow() {
+            return String.format("%-10s %10d %10s %8s %10s %12d %12d %5d %8d %10d",
+                    name,
+                    TimeUnit.NANOSECONDS.toMillis(wallNanos),
+                    cpuNanos < 0 ? "n/a" : String.valueOf(TimeUnit.NANOSECONDS.toMillis(cpuNanos)),
+                    countsFiles ? String.valueOf(files.sum()) : "",
+                    countsFiles ? String.valueOf(filesPerSecond()) : "",
+                    bytesRead.sum() / 1024,
+                    bytesWritten.sum() / 1024,
+                    gcCount,
+                    gcMillis,
+                    peakHeapBytes / (1024 * 1024));
+        }
+
+        JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            json.put("name", name);
+            json.put("wallMillis", TimeUnit.NANOSECONDS.toMillis(wallNanos));
+            json.put("cpuMillis", cpuNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(cpuNanos));
+            if(countsFiles){
+                json.put("files", files.sum());
+                json.put("filesPerSecond", filesPerSecond());
+            }
+            json.put("bytesRead", bytesRead.sum());
+            json.put("bytesWritten", bytesWritten.sum());
+            json.put("gcCount", gcCount);
+            json.put("gcMillis", gcMillis);
+            json.put("peakHeapBytes", peakHeapBytes);
+            return json;
+        }
+    }
+
+    //region JVM measures
+    private static long processCpuNanos() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if(os instanceof com.sun.management.OperatingSystemMXBean){
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+
+    private static long peakHeapBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if(pool.getType() == MemoryType.HEAP){
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+    //endregion
+}
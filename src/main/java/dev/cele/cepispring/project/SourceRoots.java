@@ -0,0 +1,149 @@
+package dev.cele.cepispring.project;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns the directories given on the command line into the java source roots to scan.
+ * A directory with a pom.xml or a settings.gradle is a build, and is replaced by the source roots of all its modules;
+ * any other directory is a source root already.
+ */
+public class SourceRoots {
+    private static final String DEFAULT_SOURCE_DIRECTORY = "src/main/java";
+
+    //include 'a', ':b:c' and include("d") in settings.gradle and settings.gradle.kts
+    private static final Pattern GRADLE_INCLUDE = Pattern.compile("^\\s*(include|includeFlat)\\b\\s*\\(?(.*)$", Pattern.MULTILINE);
+    private static final Pattern QUOTED = Pattern.compile("[\"']([^\"']+)[\"']");
+
+    public static List<Path> resolve(List<Path> directories) {
+        Set<Path> roots = new LinkedHashSet<>();
+        for (Path directory : directories) {
+            List<Path> moduleRoots = new ArrayList<>();
+            if(Files.isRegularFile(directory.resolve("pom.xml"))){
+                addMavenRoots(directory, moduleRoots, new LinkedHashSet<>());
+            } else if(Files.isRegularFile(directory.resolve("settings.gradle")) || Files.isRegularFile(directory.resolve("settings.gradle.kts"))){
+                addGradleRoots(directory, moduleRoots);
+            } else if(Files.isRegularFile(directory.resolve("build.gradle")) || Files.isRegularFile(directory.resolve("build.gradle.kts"))){
+                addIfExists(directory.resolve(DEFAULT_SOURCE_DIRECTORY), moduleRoots);
+            } else {
+                roots.add(directory);
+                continue;
+            }
+
+            if(moduleRoots.isEmpty()){
+                //a build without sources where expected, scanning it all is the best guess
+                System.out.println("No module sources found in " + directory + ", scanning the whole directory");
+                roots.add(directory);
+            } else {
+                System.out.println("Found " + moduleRoots.size() + " source roots in " + directory);
+                roots.addAll(moduleRoots);
+            }
+        }
+        return new ArrayList<>(roots);
+    }
+
+    private static void addMavenRoots(Path moduleDirectory, List<Path> roots, Set<Path> visited) {
+        Path pom = moduleDirectory.resolve("pom.xml");
+        if(!Files.isRegularFile(pom) || !visited.add(pom.toAbsolutePath().normalize())){
+            return;
+        }
+
+        Element project;
+        try {
+            project = readXml(pom).getDocumentElement();
+        } catch (Exception e) {
+            System.out.println("Cannot read " + pom + ", skipping its modules");
+            return;
+        }
+
+        //a custom source directory, unless it's made of properties other than the base directory
+        String sourceDirectory = DEFAULT_SOURCE_DIRECTORY;
+        Element build = child(project, "build");
+        Element customSourceDirectory = build == null ? null : child(build, "sourceDirectory");
+        if(customSourceDirectory != null){
+            String value = customSourceDirectory.getTextContent().trim()
+                    .replace("${project.basedir}/", "")
+                    .replace("${basedir}/", "");
+            if(!value.contains("${")){
+                sourceDirectory = value;
+            }
+        }
+        addIfExists(moduleDirectory.resolve(sourceDirectory), roots);
+
+        //the modules of the build and of its profiles
+        NodeList modules = project.getElementsByTagName("module");
+        for (int i = 0; i < modules.getLength(); i++) {
+            Node module = modules.item(i);
+            if(module.getParentNode() != null && "modules".equals(module.getParentNode().getNodeName())){
+                addMavenRoots(moduleDirectory.resolve(module.getTextContent().trim()).normalize(), roots, visited);
+            }
+        }
+    }
+
+    private static void addGradleRoots(Path buildDirectory, List<Path> roots) {
+        Path settings = Files.isRegularFile(buildDirectory.resolve("settings.gradle"))
+                ? buildDirectory.resolve("settings.gradle")
+                : buildDirectory.resolve("settings.gradle.kts");
+
+        String content;
+        try {
+            content = new String(Files.readAllBytes(settings), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.out.println("Cannot read " + settings + ", skipping its modules");
+            return;
+        }
+
+        addIfExists(buildDirectory.resolve(DEFAULT_SOURCE_DIRECTORY), roots);
+
+        Matcher include = GRADLE_INCLUDE.matcher(content);
+        while (include.find()) {
+            boolean flat = include.group(1).equals("includeFlat");
+            Matcher project = QUOTED.matcher(include.group(2));
+            while (project.find()) {
+                //":services:billing" lives in services/billing, flat projects are next to the build
+                String projectPath = project.group(1).replaceFirst("^:", "").replace(':', '/');
+                Path projectDirectory = flat ? buildDirectory.resolve("..").resolve(projectPath) : buildDirectory.resolve(projectPath);
+                addIfExists(projectDirectory.normalize().resolve(DEFAULT_SOURCE_DIRECTORY), roots);
+            }
+        }
+    }
+
+    private static void addIfExists(Path root, List<Path> roots) {
+        if(Files.isDirectory(root) && !roots.contains(root)){
+            roots.add(root);
+        }
+    }
+
+    private static Document readXml(Path file) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        //poms never need a DTD, and resolving one could reach the network
+        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        factory.setExpandEntityReferences(false);
+        DocumentBuilder builder = factory.newDocumentBuilder();
+        return builder.parse(file.toFile());
+    }
+
+    private static Element child(Element parent, String name) {
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if(node instanceof Element && node.getNodeName().equals(name)){
+                return (Element) node;
+            }
+        }
+        return null;
+    }
+}
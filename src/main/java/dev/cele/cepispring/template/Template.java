@@ -0,0 +1,233 @@
+package dev.cele.cepispring.template;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A small mustache-like template, parsed once and rendered many times.
+ * <ul>
+ *     <li>{{name}} is replaced by the value of name</li>
+ *     <li>{{#name}}...{{/name}} is rendered once for each map in the list name, or once if name is true</li>
+ *     <li>{{^name}}...{{/name}} is rendered only if name is false or an empty list</li>
+ * </ul>
+ * Section tags alone on their line don't leave an empty line behind.
+ */
+public class Template {
+    private static final String RESOURCE_DIRECTORY = "/templates/";
+
+    //every thread renders in its own buffer, that grows to the biggest output and is then reused
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(4096));
+
+    private final String name;
+    private final Node[] nodes;
+
+    private Template(String name, Node[] nodes) {
+        this.name = name;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Loads a bundled template, unless the override directory has a file with the same name.
+     */
+    public static Template load(String name, Path overrideDirectory) {
+        try {
+            if(overrideDirectory != null && Files.isRegularFile(overrideDirectory.resolve(name))){
+                return compile(name, new String(Files.readAllBytes(overrideDirectory.resolve(name)), StandardCharsets.UTF_8));
+            }
+
+            try (InputStream in = Template.class.getResourceAsStream(RESOURCE_DIRECTORY + name)) {
+                if(in == null){
+                    throw new RuntimeException("Template not found: " + name);
+                }
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    content.write(buffer, 0, read);
+                }
+                return compile(name, new String(content.toByteArray(), StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read template " + name, e);
+        }
+    }
+
+    public static Template compile(String name, String source) {
+        Deque<Section> sections = new ArrayDeque<>();
+        List<Node> nodes = new ArrayList<>();
+
+        int position = 0;
+        while (position < source.length()) {
+            int tagStart = source.indexOf("{{", position);
+            if(tagStart < 0){
+                nodes.add(new Literal(source.substring(position)));
+                break;
+            }
+            int tagEnd = source.indexOf("}}", tagStart);
+            if(tagEnd < 0){
+                throw new RuntimeException("Unclosed tag in template " + name + " at " + tagStart);
+            }
+
+            String tag = source.substring(tagStart + 2, tagEnd).trim();
+            char kind = tag.isEmpty() ? 0 : tag.charAt(0);
+            boolean isSectionTag = kind == '#' || kind == '^' || kind == '/';
+            if(tag.isEmpty() || (isSectionTag && tag.substring(1).trim().isEmpty())){
+                throw new RuntimeException("Unexpected {{" + tag + "}} in template " + name);
+            }
+
+            //section tags alone on their line take the whole line with them
+            int literalEnd = tagStart;
+            int next = tagEnd + 2;
+            if(isSectionTag){
+                int lineStart = source.lastIndexOf('\n', tagStart - 1) + 1;
+                int lineEnd = source.indexOf('\n', next);
+                if(lineEnd < 0){
+                    lineEnd = source.length();
+                }
+                if(source.substring(lineStart, tagStart).trim().isEmpty() && source.substring(next, lineEnd).trim().isEmpty()){
+                    literalEnd = lineStart;
+                    next = Math.min(lineEnd + 1, source.length());
+                }
+            }
+
+            if(literalEnd > position){
+                nodes.add(new Literal(source.substring(position, literalEnd)));
+            }
+            position = next;
+
+            if(kind == '#' || kind == '^'){
+                Section section = new Section(tag.substring(1).trim(), kind == '^', nodes);
+                sections.push(section);
+                nodes = new ArrayList<>();
+            } else if(kind == '/'){
+                Section section = sections.poll();
+                if(section == null || !section.name.equals(tag.substring(1).trim())){
+                    throw new RuntimeException("Unexpected {{" + tag + "}} in template " + name);
+                }
+                section.body = nodes.toArray(new Node[0]);
+                nodes = section.outerNodes;
+                nodes.add(section);
+            } else {
+                nodes.add(new Variable(tag));
+            }
+        }
+
+        if(!sections.isEmpty()){
+            throw new RuntimeException("Unclosed section " + sections.peek().name + " in template " + name);
+        }
+        return new Template(name, nodes.toArray(new Node[0]));
+    }
+
+    public String render(Map<String, ?> values) {
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        Scope scope = new Scope(values, null);
+        for (Node node : nodes) {
+            node.render(this, scope, out);
+        }
+        return out.toString();
+    }
+
+    private interface Node {
+        void render(Template template, Scope scope, StringBuilder out);
+    }
+
+    private static class Scope {
+        final Map<String, ?> values;
+        final Scope parent;
+
+        Scope(Map<String, ?> values, Scope parent) {
+            this.values = values;
+            this.parent = parent;
+        }
+
+        Object get(Template template, String name) {
+            for (Scope scope = this; scope != null; scope = scope.parent) {
+                Object value = scope.values.get(name);
+                if(value != null){
+                    return value;
+                }
+            }
+            throw new RuntimeException("Unknown variable " + name + " in template " + template.name);
+        }
+    }
+
+    private static class Literal implements Node {
+        final String text;
+
+        Literal(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public void render(Template template, Scope scope, StringBuilder out) {
+            out.append(text);
+        }
+    }
+
+    private static class Variable implements Node {
+        final String name;
+
+        Variable(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void render(Template template, Scope scope, StringBuilder out) {
+            out.append(scope.get(template, name));
+        }
+    }
+
+    private static class Section implements Node {
+        final String name;
+        final boolean inverted;
+        //the nodes before the section, only used while compiling
+        final List<Node> outerNodes;
+        Node[] body;
+
+        Section(String name, boolean inverted, List<Node> outerNodes) {
+            this.name = name;
+            this.inverted = inverted;
+            this.outerNodes = outerNodes;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void render(Template template, Scope scope, StringBuilder out) {
+            Object value = scope.get(template, name);
+
+            boolean empty = Boolean.FALSE.equals(value) || (value instanceof Collection && ((Collection<?>) value).isEmpty());
+            if(inverted){
+                if(empty){
+                    renderBody(template, scope, out);
+                }
+                return;
+            }
+
+            if(value instanceof Collection){
+                for (Object item : (Collection<?>) value) {
+                    renderBody(template, new Scope((Map<String, ?>) item, scope), out);
+                }
+            } else if(!empty){
+                renderBody(template, scope, out);
+            }
+        }
+
+        private void renderBody(Template template, Scope scope, StringBuilder out) {
+            for (Node node : body) {
+                node.render(template, scope, out);
+            }
+        }
+    }
+}
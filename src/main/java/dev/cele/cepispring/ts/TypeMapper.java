@@ -0,0 +1,156 @@
+package dev.cele.cepispring.ts;
+
+import dev.cele.cepispring.Utils;
+import dev.cele.cepispring.model.ClassModel;
+import dev.cele.cepispring.model.TypeResolver;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Maps java types, as written in the source, to the typescript type of their JSON form.
+ * Types are resolved first, so a class of the project named like a JDK type isn't mistaken for it;
+ * JDK and library names come from a lookup table, containers are mapped from their type arguments,
+ * and the result for every distinct resolved type is memoized, since the same few types repeat in every DTO.
+ */
+public class TypeMapper {
+    private static final Pattern DTO = Pattern.compile("(?i)dto");
+    private static final Pattern WILDCARD_BOUND = Pattern.compile("^\\?\\s*(extends|super)\\s+");
+
+    //region tables
+    private static final Map<String, String> SIMPLE_TYPES = new HashMap<>();
+    static {
+        for (String type : Arrays.asList("int", "long", "double", "float", "short", "byte",
+                "Integer", "Long", "Double", "Float", "Short", "Byte", "Number", "BigDecimal", "BigInteger",
+                "AtomicInteger", "AtomicLong")) {
+            SIMPLE_TYPES.put(type, "number");
+        }
+        SIMPLE_TYPES.put("boolean", "boolean");
+        SIMPLE_TYPES.put("Boolean", "boolean");
+        for (String type : Arrays.asList("String", "char", "Character", "CharSequence", "UUID", "URI", "URL", "Locale", "Currency")) {
+            SIMPLE_TYPES.put(type, "string");
+        }
+        //dates are written as ISO strings, like spring boot configures jackson
+        for (String type : Arrays.asList("Date", "Calendar", "Instant", "LocalDate", "LocalDateTime", "LocalTime",
+                "OffsetDateTime", "OffsetTime", "ZonedDateTime", "Year", "YearMonth", "MonthDay", "Duration", "Period", "ZoneId")) {
+            SIMPLE_TYPES.put(type, "string");
+        }
+        SIMPLE_TYPES.put("Object", "any");
+        SIMPLE_TYPES.put("JsonNode", "any");
+        SIMPLE_TYPES.put("OptionalInt", "number | undefined");
+        SIMPLE_TYPES.put("OptionalLong", "number | undefined");
+        SIMPLE_TYPES.put("OptionalDouble", "number | undefined");
+    }
+
+    private static final Set<String> COLLECTIONS = new HashSet<>(Arrays.asList(
+            "List", "ArrayList", "LinkedList", "Collection", "Iterable",
+            "Set", "HashSet", "LinkedHashSet", "TreeSet", "SortedSet", "NavigableSet", "EnumSet"));
+
+    private static final Set<String> MAPS = new HashSet<>(Arrays.asList(
+            "Map", "HashMap", "LinkedHashMap", "TreeMap", "SortedMap", "NavigableMap", "EnumMap", "ConcurrentHashMap"));
+    //endregion
+
+    private final TypeResolver resolver;
+    //fully qualified, enums are written as their constant name
+    private final Set<String> enumTypes;
+    private final Map<String, String> memo = new ConcurrentHashMap<>();
+
+    public TypeMapper(TypeResolver resolver, Set<String> enumTypes) {
+        this.resolver = resolver;
+        this.enumTypes = enumTypes;
+    }
+
+    /**
+     * The typescript type of a type used in a class.
+     */
+    public String map(ClassModel context, String javaType) {
+        return map(resolver.qualify(context, javaType));
+    }
+
+    private String map(String qualifiedType) {
+        String typeScript = memo.get(qualifiedType);
+        if(typeScript == null){
+            //not computeIfAbsent: mapping the type arguments updates the memo too
+            typeScript = convert(qualifiedType.trim());
+            memo.put(qualifiedType, typeScript);
+        }
+        return typeScript;
+    }
+
+    private String convert(String javaType) {
+        if(javaType.endsWith("[]")){
+            String componentType = javaType.substring(0, javaType.length() - 2).trim();
+            //jackson writes byte arrays in base64
+            return componentType.equals("byte") ? "string" : arrayOf(map(componentType));
+        }
+        if(javaType.endsWith("...")){
+            return arrayOf(map(javaType.substring(0, javaType.length() - 3)));
+        }
+
+        //wildcards are as good as their bound
+        if(javaType.equals("?")){
+            return "any";
+        }
+        if(javaType.startsWith("?")){
+            return map(WILDCARD_BOUND.matcher(javaType).replaceFirst(""));
+        }
+
+        int genericsStart = javaType.indexOf('<');
+        String rawType = (genericsStart >= 0 ? javaType.substring(0, genericsStart) : javaType).trim();
+        String name = Utils.getSimpleName(rawType);
+        List<String> typeArguments = Utils.getTypeArguments(javaType);
+
+        //the table only knows the JDK and library types, or the names that couldn't be resolved
+        if(!resolver.isSourceType(rawType)){
+            String simpleType = SIMPLE_TYPES.get(name);
+            if(simpleType != null){
+                return simpleType;
+            }
+            if(COLLECTIONS.contains(name)){
+                return arrayOf(typeArguments.isEmpty() ? "any" : map(typeArguments.get(0)));
+            }
+            if(MAPS.contains(name)){
+                if(typeArguments.size() != 2){
+                    return "Record<string, any>";
+                }
+                //only strings and numbers can be JSON object keys
+                String keyType = map(typeArguments.get(0)).equals("number") ? "number" : "string";
+                return "Record<" + keyType + ", " + map(typeArguments.get(1)) + ">";
+            }
+            if(name.equals("Optional")){
+                return (typeArguments.isEmpty() ? "any" : map(typeArguments.get(0))) + " | undefined";
+            }
+        }
+        if(enumTypes.contains(rawType)){
+            return "string";
+        }
+
+        //a DTO, or a type this table doesn't know
+        if(typeArguments.isEmpty()){
+            return withoutDto(name);
+        }
+        StringBuilder generic = new StringBuilder(withoutDto(name)).append("<");
+        for (int i = 0; i < typeArguments.size(); i++) {
+            generic.append(i > 0 ? ", " : "").append(map(typeArguments.get(i)));
+        }
+        return generic.append(">").toString();
+    }
+
+    private static String arrayOf(String elementType) {
+        //unions must be grouped, "string | undefined[]" would be a union with an array
+        return (elementType.contains("|") ? "(" + elementType + ")" : elementType) + "[]";
+    }
+
+    /**
+     * The name of a DTO without "dto", in any case, which is the name of its interface.
+     */
+    public static String withoutDto(String name) {
+        return DTO.matcher(name).replaceAll("");
+    }
+}
@@ -0,0 +1,137 @@
+package dev.cele.cepispring.ts;
+
+import dev.cele.cepispring.model.ClassModel;
+import dev.cele.cepispring.model.FieldModel;
+import dev.cele.cepispring.output.OutputSink;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Collects the generated interfaces to write them at once, instead of a file per DTO:
+ * all in a single file, or in a file per java package with an index.ts barrel exporting them all.
+ * The interfaces are sorted by name, and if several have the same name only the first one is kept.
+ */
+public class TypescriptBundle {
+    public enum Mode { SINGLE, PACKAGE }
+
+    private static final String SINGLE_FILE_NAME = "models.ts";
+    private static final String BARREL_FILE_NAME = "index.ts";
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_$][A-Za-z0-9_$]*");
+
+    private final Mode mode;
+    //interface name -> interface, sorted
+    private final Map<String, Entry> interfaces = new TreeMap<>();
+
+    public TypescriptBundle(Mode mode) {
+        this.mode = mode;
+    }
+
+    public void add(ClassModel dto, String typeScript) {
+        if(typeScript == null){
+            return;
+        }
+
+        String name = TypeMapper.withoutDto(dto.name);
+        Entry existing = interfaces.get(name);
+        if(existing != null){
+            System.out.println("Skipping " + dto.getFullyQualifiedName() + ", the interface " + name + " already comes from " + existing.packageName);
+            return;
+        }
+        interfaces.put(name, new Entry(dto.packageName, referencedTypes(dto), typeScript));
+    }
+
+    public void clear() {
+        interfaces.clear();
+    }
+
+    /**
+     * Writes the bundle files in the sink.
+     */
+    public void writeTo(OutputSink sink) {
+        if(mode == Mode.SINGLE){
+            sink.write(SINGLE_FILE_NAME, join(new ArrayList<>(interfaces.values())));
+            return;
+        }
+
+        //package -> its interfaces, still sorted by name
+        Map<String, List<Entry>> packages = new TreeMap<>();
+        interfaces.values().forEach(entry -> packages.computeIfAbsent(entry.packageName, it -> new ArrayList<>()).add(entry));
+
+        StringBuilder barrel = new StringBuilder();
+        packages.forEach((packageName, entries) -> {
+            String module = moduleName(packageName);
+            barrel.append("export * from './").append(module).append("';\n");
+            sink.write(module + ".ts", imports(packageName, entries) + join(entries));
+        });
+        sink.write(BARREL_FILE_NAME, barrel.toString());
+    }
+
+    /**
+     * The imports of the interfaces declared in the other package files.
+     */
+    private String imports(String packageName, List<Entry> entries) {
+        Map<String, Set<String>> importsByPackage = new TreeMap<>();
+        for (Entry entry : entries) {
+            for (String type : entry.referencedTypes) {
+                Entry referenced = interfaces.get(type);
+                if(referenced != null && !referenced.packageName.equals(packageName)){
+                    importsByPackage.computeIfAbsent(referenced.packageName, it -> new TreeSet<>()).add(type);
+                }
+            }
+        }
+
+        StringBuilder imports = new StringBuilder();
+        importsByPackage.forEach((importedPackage, types) -> imports
+                .append("import { ").append(String.join(", ", types)).append(" } from './")
+                .append(moduleName(importedPackage)).append("';\n"));
+        return imports.length() == 0 ? "" : imports.append("\n").toString();
+    }
+
+    private static String join(List<Entry> entries) {
+        StringBuilder output = new StringBuilder();
+        for (Entry entry : entries) {
+            if(output.length() > 0){
+                output.append("\n");
+            }
+            output.append(entry.typeScript);
+        }
+        return output.toString();
+    }
+
+    private static String moduleName(String packageName) {
+        return (packageName.isEmpty() ? "default" : packageName) + ".model";
+    }
+
+    /**
+     * The names in the field types that can be interfaces, that is without "dto" like the interface names.
+     */
+    private static Set<String> referencedTypes(ClassModel dto) {
+        Set<String> types = new TreeSet<>();
+        for (FieldModel field : dto.fields) {
+            Matcher matcher = IDENTIFIER.matcher(TypeMapper.withoutDto(field.type));
+            while (matcher.find()) {
+                types.add(matcher.group());
+            }
+        }
+        return types;
+    }
+
+    private static class Entry {
+        final String packageName;
+        final Set<String> referencedTypes;
+        final String typeScript;
+
+        Entry(String packageName, Set<String> referencedTypes, String typeScript) {
+            this.packageName = packageName;
+            this.referencedTypes = referencedTypes;
+            this.typeScript = typeScript;
+        }
+    }
+}
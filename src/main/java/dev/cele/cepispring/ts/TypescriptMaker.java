@@ -1,88 +1,220 @@
 package dev.cele.cepispring.ts;
 
-import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-import com.github.javaparser.ast.body.VariableDeclarator;
-import com.github.javaparser.ast.type.ClassOrInterfaceType;
-import com.github.javaparser.ast.type.Type;
 import dev.cele.cepispring.CLIOptions;
 import dev.cele.cepispring.Utils;
+import dev.cele.cepispring.model.ClassModel;
+import dev.cele.cepispring.model.ParseCache;
+import dev.cele.cepispring.model.ProjectIndex;
+import dev.cele.cepispring.model.ProjectSymbols;
+import dev.cele.cepispring.model.SourcePrefilter;
+import dev.cele.cepispring.model.TypeResolver;
+import dev.cele.cepispring.output.OutputSink;
+import dev.cele.cepispring.profile.Profiler;
 
 import java.io.File;
-import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.*;
+import java.util.stream.Collectors;
 
 public class TypescriptMaker implements Runnable {
+    //only DTOs and entities are needed, everything else is skipped before parsing
+    //enums too, to know which field types are written as strings
+    private static final SourcePrefilter PREFILTER = SourcePrefilter.forAnnotations("Entity").orPackageOrClassContains("dto").orDeclaresEnums();
+
     private final CLIOptions options;
+    private final ParseCache cache;
+    private final OutputSink sink;
+    //null when every interface gets its own file
+    private final TypescriptBundle bundle;
+
+    private ProjectIndex index;
+    //kept across the updates, which only invalidate the types of the changed files
+    private TypeResolver resolver;
+    //replaced once the enums of the project are known
+    private TypeMapper types = new TypeMapper(new TypeResolver(Collections.emptyList(), type -> false), Collections.emptySet());
+
+    public TypescriptMaker(CLIOptions options, OutputSink sink) {
+        this(options, sink, ParseCache.forOptions(options));
+    }
 
-    public TypescriptMaker(CLIOptions options) {
+    public TypescriptMaker(CLIOptions options, OutputSink sink, ParseCache cache) {
         this.options = options;
+        this.sink = sink;
+        this.cache = cache;
+        this.bundle = options.tsBundle == null ? null : new TypescriptBundle(options.tsBundle);
     }
 
     @Override
     public void run() {
+        if(options.maxHeapBudget != null){
+            runStreaming(Utils.batchSize(options.maxHeapBudget, options.threads));
+            return;
+        }
+
         //scanning the directory
-        HashMap<File, CompilationUnit> javaFiles = Utils.parseDirectory(options.directory);
+        Map<File, List<ClassModel>> parsedFiles = Utils.parseDirectories(options.directories, options.threads, cache, PREFILTER);
 
-        //getting the DTOs
-        Map<File, CompilationUnit> dtos = Utils.filterByPackageOrClassContains(javaFiles ,"dto");
-        Map<File, CompilationUnit> entities = Utils.filterByHasAnnotation(javaFiles ,"Entity");
+        List<ClassModel> dtos;
+        try (Profiler.Phase phase = Profiler.start("classify")) {
+            index = new ProjectIndex(parsedFiles);
+            types = indexTypeMapper();
+            dtos = getDtos();
+        }
 
-        if(options.useEntities){
-            dtos = entities;
+        //converting the DTOs to Typescript
+        try (Profiler.Phase phase = Profiler.start("generate")) {
+            dtos.forEach(this::generate);
+            Profiler.countFiles(dtos.size());
+        }
+        try (Profiler.Phase phase = Profiler.start("write")) {
+            if(bundle != null){
+                bundle.writeTo(sink);
+            }
+            sink.flush();
         }
+    }
 
+    /**
+     * Converts the project without holding it in memory: a first pass only finds out if there are DTOs and which types are enums,
+     * a second one converts the DTOs (or the entities) of every batch of files and writes them before the next batch.
+     * The entities aren't kept, so every DTO is converted on its own; with a bundle only the generated text is kept.
+     */
+    private void runStreaming(int batchSize) {
+        ProjectSymbols symbols = new ProjectSymbols(options.directories);
+        Utils.streamDirectories(options.directories, options.threads, batchSize, PREFILTER, models -> {
+            try (Profiler.Phase phase = Profiler.start("classify")) {
+                symbols.addAll(models);
+            }
+        });
+        types = new TypeMapper(symbols.getResolver(), symbols.getEnumTypes());
+
+        boolean convertEntities = options.useEntities || !symbols.hasDtos();
+        Utils.streamDirectories(options.directories, options.threads, batchSize, PREFILTER, models -> {
+            List<ClassModel> dtos = models.stream()
+                    .filter(model -> convertEntities ? isEntity(model) : model.isDto())
+                    .collect(Collectors.toList());
+            if(dtos.isEmpty()){
+                return;
+            }
 
-        if(dtos.size() == 0){
-            dtos = entities;
-            entities = new HashMap<>();
+            try (Profiler.Phase phase = Profiler.start("generate")) {
+                dtos.forEach(dto -> write(dto, null));
+                Profiler.countFiles(dtos.size());
+            }
+            //the bundle is written once, at the end
+            if(bundle == null){
+                try (Profiler.Phase phase = Profiler.start("write")) {
+                    sink.flush();
+                }
+            }
+        });
+
+        if(bundle != null){
+            try (Profiler.Phase phase = Profiler.start("write")) {
+                bundle.writeTo(sink);
+                sink.flush();
+            }
         }
+    }
 
-        //converting the DTOs to Typescript
-        Map<File, CompilationUnit> finalEntities = entities;
-        dtos.forEach((file, dto) -> {
-            //finding the entity with the same name as this DTO
-            String dtoName = dto.getType(0).getNameAsString();
-            CompilationUnit dtoEntity = finalEntities.values().stream()
-                    .filter(entity -> dtoName.contains(entity.getType(0).getNameAsString()))
-                    .findFirst().orElse(null);
-
-            String typeScript = convertToTypescript(dto, dtoEntity);
-            System.out.println(typeScript);
-            if(options.output != null){
-
-                String typeScriptFileName = Utils.toKebabCase(dtoName.replaceAll("(?i)dto","")) + ".model.ts";
-                Path outputFilePath = options.output.resolve(typeScriptFileName);
-
-                System.out.println("Writing to file: "+outputFilePath);
-
-                try {
-                    Files.createDirectories(outputFilePath.getParent());
-                    Files.write(outputFilePath, typeScript.getBytes());
-                    System.out.println("Done!");
-                } catch (IOException e) {
-                    System.out.println("There was an error writing the file: "+outputFilePath);
-                }
+    private static boolean isEntity(ClassModel model) {
+        return (model.isClass() || model.isInterface()) && model.isAnnotationPresent("Entity");
+    }
+
+    /**
+     * Re-parses the changed files and regenerates only the interfaces declared in them.
+     * Must be called after run.
+     */
+    public void update(Collection<File> changedFiles) {
+        //the types declared in the changed files, before and after the change
+        Set<String> changedTypes = new HashSet<>();
+        List<File> existingFiles = new ArrayList<>();
+        for (File file : changedFiles) {
+            index.getFiles().getOrDefault(file, Collections.emptyList()).forEach(model -> changedTypes.add(model.getFullyQualifiedName()));
+            if(file.exists()){
+                existingFiles.add(file);
+            } else {
+                index.remove(file);
             }
+        }
+
+        Map<File, List<ClassModel>> parsedFiles = Utils.parseFiles(options.directories, existingFiles, options.threads, cache, PREFILTER);
+        Set<ClassModel> changedModels = new HashSet<>();
+        parsedFiles.forEach((file, models) -> {
+            index.put(file, models);
+            changedModels.addAll(models);
+            models.forEach(model -> changedTypes.add(model.getFullyQualifiedName()));
         });
+        cache.save();
+        resolver.invalidate(changedTypes);
+        types = indexTypeMapper();
+
+        if(bundle != null){
+            //the bundle files hold every interface, they're rebuilt and the sink skips the ones that didn't change
+            bundle.clear();
+            getDtos().forEach(this::generate);
+            bundle.writeTo(sink);
+        } else {
+            getDtos().stream().filter(changedModels::contains).forEach(this::generate);
+        }
+        sink.flush();
+    }
+
+    private List<ClassModel> getDtos() {
+        if(options.useEntities || index.getDtos().isEmpty()){
+            return index.getAnnotatedWith("Entity");
+        }
+        return index.getDtos();
+    }
+
+    /**
+     * A mapper for the enums of the index, its memo is cheap to rebuild, unlike the resolver.
+     */
+    private TypeMapper indexTypeMapper() {
+        if(resolver == null){
+            resolver = new TypeResolver(options.directories, type -> index.getByFullyQualifiedName(type).isPresent());
+        }
+        return new TypeMapper(resolver, index.getEnums().stream().map(ClassModel::getFullyQualifiedName).collect(Collectors.toSet()));
+    }
+
+    private void generate(ClassModel dto) {
+        //finding the entity with the same name as this DTO, entities used as DTOs have none
+        String dtoName = dto.name;
+        ClassModel dtoEntity = index.getDtos().isEmpty() ? null : findEntity(index, TypeMapper.withoutDto(dtoName));
+        write(dto, dtoEntity);
+    }
+
+    private void write(ClassModel dto, ClassModel dtoEntity) {
+        String typeScript = convertToTypescript(dto, dtoEntity);
+        if(bundle != null){
+            bundle.add(dto, typeScript);
+            return;
+        }
+        //enums and annotations in a dto package have no interface
+        if(typeScript == null){
+            return;
+        }
+
+        String typeScriptFileName = Utils.toKebabCase(TypeMapper.withoutDto(dto.name)) + ".model.ts";
+        sink.write(typeScriptFileName, typeScript);
+    }
+
+    private static ClassModel findEntity(ProjectIndex index, String name) {
+        return index.getBySimpleName(name).stream()
+                .filter(it -> it.isAnnotationPresent("Entity"))
+                .findFirst().orElse(null);
     }
 
-    private String convertToTypescript(CompilationUnit dto, CompilationUnit entity) {
+    String convertToTypescript(ClassModel dto, ClassModel entity) {
         //region preparing data
-        if(!dto.getType(0).isClassOrInterfaceDeclaration()){
+        if(!dto.isClass() && !dto.isInterface()){
             return null;
         }
-        if(entity != null && !entity.getType(0).isClassOrInterfaceDeclaration()){
+        if(entity != null && !entity.isClass() && !entity.isInterface()){
             entity = null;
         }
 
-        ClassOrInterfaceDeclaration dtoClass = dto.getType(0).asClassOrInterfaceDeclaration();
-        ClassOrInterfaceDeclaration entityClass = entity != null ? entity.getType(0).asClassOrInterfaceDeclaration() : null;
-
 
         //creating the interface opening
         StringWriter output = new StringWriter();
@@ -90,17 +222,16 @@ public class TypescriptMaker implements Runnable {
         //endregion
 
 
-        printer.println("export interface " + dtoClass.getNameAsString().replaceAll("(?i)dto", "") + " {");
+        printer.println("export interface " + TypeMapper.withoutDto(dto.name) + " {");
 
-        dtoClass.getFields().forEach(field -> {
-            VariableDeclarator variable = field.getVariable(0);
-            String variableName = variable.getNameAsString();
+        dto.fields.forEach(field -> {
+            String variableName = field.name;
 
             //checking if the variable is the @ID field
             if(variableName.equals("id")){
-                printer.println("  "+variableName+": "+ tsType(variable.getType()) +" | undefined,");
+                printer.println("  "+variableName+": "+ types.map(dto, field.type) +" | undefined,");
             }else{
-                printer.println("  "+variableName+": "+ tsType(variable.getType()) +",");
+                printer.println("  "+variableName+": "+ types.map(dto, field.type) +",");
             }
 
 
@@ -111,42 +242,4 @@ public class TypescriptMaker implements Runnable {
         return output.toString();
     }
 
-    private static String tsType(Type type) {
-        String typeString = type.toString();
-        //checking if it's a number
-        if(typeString.equals("int") ||
-                typeString.equals("long") ||
-                typeString.equals("double") ||
-                typeString.equals("float") ||
-                typeString.equals("short") ||
-                typeString.equals("byte") ||
-                typeString.equals("Integer") ||
-                typeString.equals("Long") ||
-                typeString.equals("Double") ||
-                typeString.equals("Float") ||
-                typeString.equals("Short") ||
-                typeString.equals("Byte")
-        ){
-            return "number";
-        }
-
-        if(typeString.equals("boolean") || typeString.equals("Boolean")){
-            return "boolean";
-        }
-
-        if (typeString.equals("String")) {
-            return "string";
-        }
-
-        if (typeString.equals("Object")) {
-            return "any";
-        }
-
-        if(typeString.startsWith("List")){
-            return tsType(((ClassOrInterfaceType)type).getTypeArguments().get().get(0))+"[]";
-        }
-
-        return type.toString().replaceAll("(?i)dto", "");
-    }
-
 }
@@ -1,48 +1,92 @@
 package dev.cele.cepispring.update;
 
 import dev.cele.cepispring.Main;
+import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.awt.*;
 import java.io.*;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.URLConnection;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 public class Updater {
+    public static final String DEFAULT_RELEASE_URL = "https://api.github.com/repos/celedev97/cepi-spring/releases/latest";
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+    private static final int READ_TIMEOUT_MILLIS = 3000;
+    private static final long CHECK_INTERVAL_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private final String releaseUrl;
+    private final Path stateFile;
+    private final String currentVersionString;
+
+    public Updater(String releaseUrl) {
+        this(releaseUrl, Paths.get(System.getProperty("user.home"), ".cepi-spring", "update-check.properties"));
+    }
+
+    public Updater(String releaseUrl, Path stateFile) {
+        this.releaseUrl = releaseUrl;
+        this.stateFile = stateFile;
 
-    public static void checkUpdates() {
         //loading version from properties file
-        String currentVersionString = "0.0.0";
+        String version = null;
         final Properties properties = new Properties();
         try {
             properties.load(Main.class.getClassLoader().getResourceAsStream("info.properties"));
-            currentVersionString = properties.getProperty("version");
-            System.out.println("cepi-spring version: " + currentVersionString);
+            version = properties.getProperty("version");
+            System.out.println("cepi-spring version: " + version);
         } catch (IOException e) {
             System.out.println("cepi-spring version: unknown");
-            System.out.println("Cannot update cepi-spring");
-            return;
         }
+        this.currentVersionString = version;
+    }
 
-        System.out.println("Checking for updates...");
+    /**
+     * Looks for the latest release in the background, so the check doesn't slow down the real work.
+     * The network is used at most once a day, the rest of the time the last result is reused.
+     */
+    public CompletableFuture<Release> checkUpdatesAsync() {
+        if(currentVersionString == null){
+            System.out.println("Cannot update cepi-spring");
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.supplyAsync(this::findLatestRelease);
+    }
 
-        //loading latest version from github.
-        String latestVersionString = "0.0.0";
-        JSONObject jsonObject = downloadJSON("https://api.github.com/repos/celedev97/cepi-spring/releases/latest");
-        if (jsonObject == null) {
+    /**
+     * Waits for the check started by checkUpdatesAsync and installs the update if there's one.
+     */
+    public void update(CompletableFuture<Release> latestRelease) {
+        Release release;
+        try {
+            release = latestRelease.get(CONNECT_TIMEOUT_MILLIS + READ_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            System.out.println("Cannot update cepi-spring, github is taking too long to answer");
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            System.out.println("Cannot update cepi-spring, error checking for updates");
+            return;
+        }
+        if(release == null){
             return;
         }
-        latestVersionString = jsonObject.getString("tag_name");
-
 
         //comparing versions
         Version currentVersion = new Version(currentVersionString);
-        Version latestVersion = new Version(latestVersionString);
+        Version latestVersion = new Version(release.tagName);
 
         if(!latestVersion.isNewer(currentVersion)) {
             System.out.println("cepi-spring is up to date");
@@ -50,7 +94,7 @@ public class Updater {
         }
 
         System.out.println("Update available: " + latestVersion.toString());
-        String updateUrl = jsonObject.getJSONArray("assets").getJSONObject(0).getString("browser_download_url");
+        String updateUrl = release.downloadUrl;
 
         String oldJarPath = getJarPath();
         String newJarPath = oldJarPath.replace(".jar", "-update.jar");
@@ -113,19 +157,76 @@ public class Updater {
         }
     }
 
+    private Release findLatestRelease() {
+        Properties state = new Properties();
+        if(Files.isRegularFile(stateFile)){
+            try (InputStream in = Files.newInputStream(stateFile)) {
+                state.load(in);
+            } catch (IOException e) {
+                state.clear();
+            }
+        }
+
+        long lastCheck = Long.parseLong(state.getProperty("lastCheck", "0"));
+        if(System.currentTimeMillis() - lastCheck < CHECK_INTERVAL_MILLIS && state.getProperty("url", "").equals(releaseUrl)){
+            return state.containsKey("tagName") ? new Release(state.getProperty("tagName"), state.getProperty("downloadUrl")) : null;
+        }
+
+        //loading latest version from github.
+        Release release = null;
+        JSONObject jsonObject = downloadJSON(releaseUrl);
+        if (jsonObject != null) {
+            try {
+                release = new Release(
+                        jsonObject.getString("tag_name"),
+                        jsonObject.getJSONArray("assets").getJSONObject(0).getString("browser_download_url")
+                );
+            } catch (JSONException e) {
+                //a release without a jar is a failed check like the others
+                System.out.println("Cannot update cepi-spring, the latest release has no download");
+            }
+        }
+
+        //failed checks are remembered too, so an offline machine doesn't retry on every run
+        state.clear();
+        state.setProperty("lastCheck", Long.toString(System.currentTimeMillis()));
+        state.setProperty("url", releaseUrl);
+        if(release != null){
+            state.setProperty("tagName", release.tagName);
+            state.setProperty("downloadUrl", release.downloadUrl);
+        }
+        try {
+            Files.createDirectories(stateFile.getParent());
+            try (OutputStream out = Files.newOutputStream(stateFile)) {
+                state.store(out, "cepi-spring update check");
+            }
+        } catch (IOException e) {
+            //not being able to remember the check only means checking again next time
+        }
+
+        return release;
+    }
+
+    private static InputStream openStream(String url) throws IOException {
+        URLConnection connection = new URL(url).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+        return connection.getInputStream();
+    }
+
     private static JSONObject downloadJSON(String url) {
         try(BufferedReader reader = new BufferedReader(new InputStreamReader(
-                new URL(url).openStream()
+                openStream(url)
         ))) {
             return new JSONObject(reader.lines().collect(Collectors.joining()));
-        } catch (IOException e) {
+        } catch (IOException | JSONException e) {
             System.out.println("Cannot update cepi-spring, error connecting to github");
             return null;
         }
     }
 
     private static boolean downloadFile(String url, String outputFileName){
-        try (BufferedInputStream in = new BufferedInputStream(new URL(url).openStream());
+        try (BufferedInputStream in = new BufferedInputStream(openStream(url));
              FileOutputStream fileOutputStream = new FileOutputStream(outputFileName)) {
             byte dataBuffer[] = new byte[1024];
             int bytesRead;
@@ -138,6 +239,16 @@ public class Updater {
         return true;
     }
 
+    public static class Release {
+        public final String tagName;
+        public final String downloadUrl;
+
+        public Release(String tagName, String downloadUrl) {
+            this.tagName = tagName;
+            this.downloadUrl = downloadUrl;
+        }
+    }
+
     private static class Version{
         private final int major;
         private final int minor;
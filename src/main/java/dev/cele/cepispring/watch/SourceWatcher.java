@@ -0,0 +1,135 @@
+package dev.cele.cepispring.watch;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches source directories and all their subdirectories, reporting the java files that changed.
+ * Events are collected until the directory is quiet for a moment, so saving many files at once
+ * (a git checkout, a refactoring) triggers a single update.
+ */
+public class SourceWatcher {
+    private static final long DEBOUNCE_MILLIS = 30;
+
+    private final List<Path> roots;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    //the java files seen so far, a deleted directory has no event for each of its files
+    private final Set<Path> files = new HashSet<>();
+
+    public SourceWatcher(List<Path> roots) throws IOException {
+        this.roots = roots;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        for (Path root : roots) {
+            registerAll(root, null);
+        }
+    }
+
+    /**
+     * Blocks forever, calling onChange with the changed java files, deleted ones included.
+     */
+    public void watch(Consumer<Set<File>> onChange) throws InterruptedException {
+        System.out.println("Watching " + roots.stream().map(Path::toString).collect(Collectors.joining(", ")) + " for changes, press Ctrl+C to stop");
+
+        while (true) {
+            Set<File> changedFiles = new TreeSet<>();
+            collect(watchService.take(), changedFiles);
+
+            //waiting for the burst of events to end
+            WatchKey key;
+            while ((key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                collect(key, changedFiles);
+            }
+
+            if(changedFiles.isEmpty()){
+                continue;
+            }
+
+            long start = System.nanoTime();
+            onChange.accept(changedFiles);
+            System.out.println("Updated " + changedFiles.size() + " changed files in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        }
+    }
+
+    private void collect(WatchKey key, Set<File> changedFiles) {
+        Path directory = directories.get(key);
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if(event.kind() == OVERFLOW || directory == null){
+                System.out.println("Too many changes at once, some of them may be missed");
+                continue;
+            }
+
+            Path child = directory.resolve((Path) event.context());
+            if(event.kind() == ENTRY_CREATE && Files.isDirectory(child)){
+                //new packages must be watched too, and the files already in them are changes
+                try {
+                    registerAll(child, changedFiles);
+                } catch (IOException e) {
+                    System.out.println("Cannot watch " + child);
+                }
+            } else if(child.getFileName().toString().endsWith(".java")){
+                changedFiles.add(child.toFile());
+                if(event.kind() == ENTRY_DELETE){
+                    files.remove(child);
+                } else {
+                    files.add(child);
+                }
+            } else if(event.kind() == ENTRY_DELETE){
+                //a deleted or renamed package, its files are gone too
+                files.removeIf(file -> {
+                    if(file.startsWith(child)){
+                        changedFiles.add(file.toFile());
+                        return true;
+                    }
+                    return false;
+                });
+            }
+        }
+
+        if(!key.reset()){
+            directories.remove(key);
+        }
+    }
+
+    private void registerAll(Path start, Set<File> foundFiles) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                directories.put(dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if(file.getFileName().toString().endsWith(".java")){
+                    files.add(file);
+                    if(foundFiles != null){
+                        foundFiles.add(file.toFile());
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,6 @@
+# JDBC batching for the saveAll and bulk endpoints of the generated cruds, to copy in application.properties
+spring.jpa.properties.hibernate.jdbc.batch_size=50
+spring.jpa.properties.hibernate.order_inserts=true
+spring.jpa.properties.hibernate.order_updates=true
+spring.jpa.properties.hibernate.jdbc.batch_versioned_data=true
+# inserts are only batched when the ids don't come from an IDENTITY column, like GenerationType.SEQUENCE ones
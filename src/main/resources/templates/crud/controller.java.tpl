@@ -0,0 +1,103 @@
+package {{controllerPackage}};
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import {{dtoPackage}}.{{dtoName}};
+import {{dtoPackage}}.{{name}}Summary;
+import {{servicePackage}}.{{name}}Service;
+
+import javax.validation.Valid;
+import java.util.List;
+import java.util.Optional;
+
+@RestController
+//validates the elements of the bulk lists, the @Valid request bodies are validated anyway
+@Validated
+@RequestMapping("/{{kebabName}}")
+public class {{name}}Controller {
+	//bigger pages are cut to this size
+	private static final int MAX_PAGE_SIZE = {{maxPageSize}};
+
+	private final {{name}}Service {{lowerName}}Service;
+	public {{name}}Controller({{name}}Service {{lowerName}}Service) {
+		this.{{lowerName}}Service = {{lowerName}}Service;
+	}
+{{#unpaged}}
+
+	@GetMapping()
+	public List<{{dtoName}}> readAll() {
+		return {{lowerName}}Service.findAll();
+	}
+{{/unpaged}}
+
+	@GetMapping({{#unpaged}}"/page"{{/unpaged}})
+	public Page<{{name}}Summary> readPage(Pageable pageable) {
+		return {{lowerName}}Service.findAll(limit(pageable));
+	}
+
+	@GetMapping("/slice")
+	public Slice<{{name}}Summary> readSlice(Pageable pageable) {
+		return {{lowerName}}Service.findSlice(limit(pageable));
+	}
+
+	//the rows after the {{idName}} of the last one read, or the first ones without it
+	@GetMapping("/after")
+	public List<{{name}}Summary> readAfter(@RequestParam(required = false) {{idType}} after, @RequestParam(defaultValue = "20") int size) {
+		return {{lowerName}}Service.findAfter(after, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+	}
+
+	@GetMapping("/{id}")
+	public Optional<{{dtoName}}> readById(@PathVariable {{idType}} id) {
+		return {{lowerName}}Service.findById(id);
+	}
+
+	@GetMapping("/exists")
+	public boolean existsAll(@RequestParam List<{{idType}}> ids) {
+		return {{lowerName}}Service.existsAllById(ids);
+	}
+
+	@PostMapping()
+	public {{dtoName}} create(@Valid @RequestBody {{dtoName}} {{lowerName}}ToCreate) {
+		return {{lowerName}}Service.save({{lowerName}}ToCreate);
+	}
+
+	@PostMapping("/bulk")
+	public List<{{dtoName}}> createAll(@RequestBody List<@Valid {{dtoName}}> {{lowerName}}sToCreate) {
+		return {{lowerName}}Service.saveAll({{lowerName}}sToCreate);
+	}
+
+	@PutMapping()
+	public {{dtoName}} update(@Valid @RequestBody {{dtoName}} {{lowerName}}ToUpdate) {
+		return {{lowerName}}Service.save({{lowerName}}ToUpdate);
+	}
+
+	@DeleteMapping()
+	public void delete(@RequestBody {{dtoName}} {{lowerName}}ToDelete) {
+		{{lowerName}}Service.delete({{lowerName}}ToDelete);
+	}
+
+	@DeleteMapping("/{id}")
+	public void deleteById(@PathVariable {{idType}} id) {
+		{{lowerName}}Service.deleteById(id);
+	}
+
+	@DeleteMapping("/bulk")
+	public void deleteAll(@RequestBody List<{{idType}}> ids) {
+		{{lowerName}}Service.deleteAllById(ids);
+	}
+
+	private static Pageable limit(Pageable pageable) {
+		if(pageable.isUnpaged()){
+			return PageRequest.of(0, MAX_PAGE_SIZE);
+		}
+		if(pageable.getPageSize() > MAX_PAGE_SIZE){
+			return PageRequest.of(pageable.getPageNumber(), MAX_PAGE_SIZE, pageable.getSort());
+		}
+		return pageable;
+	}
+
+}
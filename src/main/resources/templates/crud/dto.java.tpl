@@ -0,0 +1,11 @@
+package {{dtoPackage}};
+
+import java.util.List;
+import lombok.*;
+
+@Data @NoArgsConstructor @AllArgsConstructor
+public class {{dtoName}} {
+{{#fields}}
+	private {{type}} {{name}};
+{{/fields}}
+}
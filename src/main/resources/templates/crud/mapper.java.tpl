@@ -0,0 +1,77 @@
+package {{mapperPackage}};
+
+import {{fullyQualifiedName}};
+import {{dtoPackage}}.{{dtoName}};
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public final class {{name}}Mapper {
+	private {{name}}Mapper() {
+	}
+
+	public static {{dtoName}} toDto({{name}} {{lowerName}}) {
+		return toDto({{lowerName}}, new IdentityHashMap<>());
+	}
+
+	public static {{name}} toEntity({{dtoName}} {{lowerName}}Dto) {
+		return toEntity({{lowerName}}Dto, new IdentityHashMap<>());
+	}
+
+	//mapped keeps the objects already copied, so circular relations end
+	static {{dtoName}} toDto({{name}} {{lowerName}}, Map<Object, Object> mapped) {
+		if({{lowerName}} == null){
+			return null;
+		}
+		Object existing = mapped.get({{lowerName}});
+		if(existing != null){
+			return ({{dtoName}}) existing;
+		}
+
+		{{dtoName}} {{lowerName}}Dto = new {{dtoName}}();
+		mapped.put({{lowerName}}, {{lowerName}}Dto);
+{{#fields}}
+{{#copied}}
+		{{lowerName}}Dto.{{setter}}({{lowerName}}.{{getter}}());
+{{/copied}}
+{{#entity}}
+		{{lowerName}}Dto.{{setter}}({{relatedEntity}}Mapper.toDto({{lowerName}}.{{getter}}(), mapped));
+{{/entity}}
+{{#entityList}}
+		{{lowerName}}Dto.{{setter}}({{lowerName}}.{{getter}}() == null ? null : {{lowerName}}.{{getter}}().stream()
+			.map(it -> {{relatedEntity}}Mapper.toDto(it, mapped))
+			.collect(Collectors.toList()));
+{{/entityList}}
+{{/fields}}
+		return {{lowerName}}Dto;
+	}
+
+	static {{name}} toEntity({{dtoName}} {{lowerName}}Dto, Map<Object, Object> mapped) {
+		if({{lowerName}}Dto == null){
+			return null;
+		}
+		Object existing = mapped.get({{lowerName}}Dto);
+		if(existing != null){
+			return ({{name}}) existing;
+		}
+
+		{{name}} {{lowerName}} = new {{name}}();
+		mapped.put({{lowerName}}Dto, {{lowerName}});
+{{#fields}}
+{{#copied}}
+		{{lowerName}}.{{setter}}({{lowerName}}Dto.{{getter}}());
+{{/copied}}
+{{#entity}}
+		{{lowerName}}.{{setter}}({{relatedEntity}}Mapper.toEntity({{lowerName}}Dto.{{getter}}(), mapped));
+{{/entity}}
+{{#entityList}}
+		{{lowerName}}.{{setter}}({{lowerName}}Dto.{{getter}}() == null ? null : {{lowerName}}Dto.{{getter}}().stream()
+			.map(it -> {{relatedEntity}}Mapper.toEntity(it, mapped))
+			.collect(Collectors.toCollection(ArrayList::new)));
+{{/entityList}}
+{{/fields}}
+		return {{lowerName}};
+	}
+}
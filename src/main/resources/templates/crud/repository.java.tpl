@@ -0,0 +1,45 @@
+package {{repositoryPackage}};
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import {{fullyQualifiedName}};
+import {{dtoPackage}}.{{name}}Summary;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface {{name}}Repository extends JpaRepository<{{name}}, {{idType}}> {
+
+	//the list reads only select the columns of the summary, in a single query
+	Page<{{name}}Summary> findSummariesBy(Pageable pageable);
+
+	//without the count query of a page
+	Slice<{{name}}Summary> findSliceBy(Pageable pageable);
+
+	//keyset pagination, the first page and the ones after the last {{idName}} seen
+	List<{{name}}Summary> findAllByOrderBy{{capitalizedIdName}}Asc(Pageable pageable);
+
+	List<{{name}}Summary> findBy{{capitalizedIdName}}GreaterThanOrderBy{{capitalizedIdName}}Asc({{idType}} {{idName}}, Pageable pageable);
+
+	long countBy{{capitalizedIdName}}In(Collection<{{idType}}> {{idName}}s);
+{{#hasRelations}}
+
+	//the relations mapped to the DTO are fetched in the same query
+	@Override
+	@EntityGraph(attributePaths = { {{relations}} })
+	Optional<{{name}}> findById({{idType}} {{idName}});
+{{#unpaged}}
+
+	@Override
+	@EntityGraph(attributePaths = { {{relations}} })
+	List<{{name}}> findAll();
+{{/unpaged}}
+{{/hasRelations}}
+
+}
@@ -0,0 +1,38 @@
+package {{servicePackage}};
+
+import {{dtoPackage}}.{{dtoName}};
+import {{dtoPackage}}.{{name}}Summary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface {{name}}Service {
+{{#unpaged}}
+	List<{{dtoName}}> findAll();
+
+{{/unpaged}}
+	Page<{{name}}Summary> findAll(Pageable pageable);
+
+	Slice<{{name}}Summary> findSlice(Pageable pageable);
+
+	List<{{name}}Summary> findAfter({{idType}} after, int size);
+
+	Optional<{{dtoName}}> findById({{idType}} id);
+
+	{{dtoName}} save({{dtoName}} {{lowerName}}DtoToSave);
+
+	List<{{dtoName}}> saveAll(List<{{dtoName}}> {{lowerName}}DtosToSave);
+
+	boolean existsById({{idType}} id);
+
+	boolean existsAllById(List<{{idType}}> ids);
+
+	void delete({{dtoName}} {{lowerName}}DtoToDelete);
+
+	void deleteById({{idType}} id);
+
+	void deleteAllById(List<{{idType}}> ids);
+}
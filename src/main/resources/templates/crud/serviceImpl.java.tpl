@@ -0,0 +1,127 @@
+package {{serviceImplPackage}};
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import {{fullyQualifiedName}};
+import {{dtoPackage}}.{{dtoName}};
+import {{dtoPackage}}.{{name}}Summary;
+import {{servicePackage}}.{{name}}Service;
+import {{repositoryPackage}}.{{name}}Repository;
+{{#mapper}}
+import {{mapperPackage}}.{{name}}Mapper;
+{{/mapper}}
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+{{^mapper}}
+
+import org.modelmapper.ModelMapper;
+{{/mapper}}
+
+@Service
+public class {{name}}ServiceImpl implements {{name}}Service {
+
+	private final {{name}}Repository {{repository}};
+{{#mapper}}
+
+	public {{name}}ServiceImpl({{name}}Repository {{repository}}) {
+		this.{{repository}} = {{repository}};
+	}
+{{/mapper}}
+{{^mapper}}
+	private final ModelMapper modelMapper;
+
+	public {{name}}ServiceImpl({{name}}Repository {{repository}}, ModelMapper modelMapper) {
+		this.{{repository}} = {{repository}};
+		this.modelMapper = modelMapper;
+	}
+{{/mapper}}
+{{#unpaged}}
+
+	@Override
+	public List<{{dtoName}}> findAll() {
+		return {{repository}}.findAll().stream().map(this::toDto).collect(Collectors.toList());
+	}
+{{/unpaged}}
+
+	@Override
+	public Page<{{name}}Summary> findAll(Pageable pageable) {
+		return {{repository}}.findSummariesBy(pageable);
+	}
+
+	@Override
+	public Slice<{{name}}Summary> findSlice(Pageable pageable) {
+		return {{repository}}.findSliceBy(pageable);
+	}
+
+	@Override
+	public List<{{name}}Summary> findAfter({{idType}} after, int size) {
+		return after == null
+			? {{repository}}.findAllByOrderBy{{capitalizedIdName}}Asc(PageRequest.of(0, size))
+			: {{repository}}.findBy{{capitalizedIdName}}GreaterThanOrderBy{{capitalizedIdName}}Asc(after, PageRequest.of(0, size));
+	}
+
+	@Override
+	public Optional<{{dtoName}}> findById({{idType}} id) {
+		Optional<{{name}}> {{lowerName}} = {{repository}}.findById(id);
+		return {{lowerName}}.map(this::toDto);
+	}
+
+	@Override
+	public {{dtoName}} save({{dtoName}} {{lowerName}}ToSave) {
+		{{name}} saved = {{repository}}.save(toEntity({{lowerName}}ToSave));
+		return toDto(saved);
+	}
+
+	//with hibernate.jdbc.batch_size the inserts and updates go to the database in batches
+	@Override
+	public List<{{dtoName}}> saveAll(List<{{dtoName}}> {{lowerName}}sToSave) {
+		List<{{name}}> saved = {{repository}}.saveAll({{lowerName}}sToSave.stream().map(this::toEntity).collect(Collectors.toList()));
+		return saved.stream().map(this::toDto).collect(Collectors.toList());
+	}
+
+	@Override
+	public boolean existsById({{idType}} id) {
+		return {{repository}}.existsById(id);
+	}
+
+	//a single count query
+	@Override
+	public boolean existsAllById(List<{{idType}}> ids) {
+		Set<{{idType}}> distinctIds = new HashSet<>(ids);
+		return distinctIds.isEmpty() || {{repository}}.countBy{{capitalizedIdName}}In(distinctIds) == distinctIds.size();
+	}
+
+	@Override
+	public void delete({{dtoName}} {{lowerName}}ToDelete) {
+		{{repository}}.deleteById({{lowerName}}ToDelete.get{{capitalizedIdName}}());
+	}
+
+	@Override
+	public void deleteById({{idType}} id) {
+		{{repository}}.deleteById(id);
+	}
+
+	//the entities are loaded and removed one by one, so the cascades, the orphan removal and the callbacks still run,
+	//the delete statements are sent in jdbc batches
+	@Override
+	public void deleteAllById(List<{{idType}}> ids) {
+		{{repository}}.deleteAllById(ids);
+	}
+
+	private {{dtoName}} toDto({{name}} {{lowerName}}) {
+		return {{#mapper}}{{name}}Mapper.toDto({{lowerName}}){{/mapper}}{{^mapper}}modelMapper.map({{lowerName}}, {{dtoName}}.class){{/mapper}};
+	}
+
+	private {{name}} toEntity({{dtoName}} {{lowerName}}Dto) {
+		return {{#mapper}}{{name}}Mapper.toEntity({{lowerName}}Dto){{/mapper}}{{^mapper}}modelMapper.map({{lowerName}}Dto, {{name}}.class){{/mapper}};
+	}
+
+}
@@ -0,0 +1,12 @@
+package {{dtoPackage}};
+
+/**
+ * The columns of {{name}} read by the list endpoints, selected without loading the relations.
+ */
+public interface {{name}}Summary {
+{{#fields}}
+{{#summary}}
+	{{qualifiedType}} {{getter}}();
+{{/summary}}
+{{/fields}}
+}